@@ -3,6 +3,7 @@ package com.mendix.cloud.urlsign;
 import com.mendix.cloud.urlsign.exception.URLSignException;
 import com.mendix.cloud.urlsign.service.URLSigner;
 import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.util.KeyCache;
 
 import javax.servlet.http.HttpServletRequest;
 import java.net.URI;
@@ -10,17 +11,28 @@ import java.net.URI;
 public class URLSign {
 
     public static final int DEFAULT_EXPIRE_TTL = 120;
+    public static final int DEFAULT_KEY_CACHE_SIZE = 64;
+
+    private static final KeyCache<URLSigner> SIGNERS = new KeyCache<>(DEFAULT_KEY_CACHE_SIZE);
+    private static final KeyCache<URLVerifier> VERIFIERS = new KeyCache<>(DEFAULT_KEY_CACHE_SIZE);
 
     private URLSign() {
     }
 
     public static URI sign(String privateKey, URI uri, int ttlInSeconds) throws URLSignException {
-        return new URLSigner(privateKey).sign(uri, ttlInSeconds);
+        return SIGNERS.get(privateKey, URLSigner::new).sign(uri, ttlInSeconds);
     }
 
     public static boolean verify(String publicKey, HttpServletRequest request) throws URLSignException {
-        return new URLVerifier(publicKey).verify(request);
+        return VERIFIERS.get(publicKey, URLVerifier::new).verify(request);
     }
 
-}
+    public static KeyCache<URLSigner> getSignerCache() {
+        return SIGNERS;
+    }
 
+    public static KeyCache<URLVerifier> getVerifierCache() {
+        return VERIFIERS;
+    }
+
+}
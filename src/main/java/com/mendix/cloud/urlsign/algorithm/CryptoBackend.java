@@ -0,0 +1,99 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.Security;
+import java.security.Signature;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * Where Signature and KeyFactory instances come from:
+ * - JDK: the providers installed in the JVM (SunRsaSign, SunEC, ...). BouncyCastle is only loaded for
+ *   schemes none of them offers, such as ISO9796-2, and Ed25519 before Java 15.
+ * - BOUNCY_CASTLE: BouncyCastle for everything, like releases before this option.
+ *
+ * Signatures made with one backend verify with the other. Which one is faster depends on the JVM: the SunEC
+ * ECDSA of Java 8 is slower than BouncyCastle's, so BOUNCY_CASTLE stays the default. The backend is JVM-wide
+ * and is read whenever signers, verifiers and KeyImporter create their instances, so select it before
+ * creating those. The urlsign.crypto.backend system property sets the initial value. The provider of each
+ * algorithm is looked up once and KeyFactory instances are shared, as the factories of these providers
+ * keep no state.
+ */
+public enum CryptoBackend {
+
+    JDK,
+    BOUNCY_CASTLE;
+
+    public static final String BACKEND_PROPERTY = "urlsign.crypto.backend";
+
+    private static volatile CryptoBackend defaultBackend = valueOf(System.getProperty(BACKEND_PROPERTY, BOUNCY_CASTLE.name()).toUpperCase(Locale.ROOT));
+
+    private final ConcurrentMap<String, Provider> providers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, KeyFactory> keyFactories = new ConcurrentHashMap<>();
+
+    public static CryptoBackend getDefault() {
+        return defaultBackend;
+    }
+
+    public static void setDefault(CryptoBackend backend) {
+        defaultBackend = backend;
+    }
+
+    public Signature newSignature(String algorithm) throws URLSignException {
+        try {
+            return Signature.getInstance(algorithm, getProvider("Signature", algorithm));
+        } catch (NoSuchAlgorithmException e) {
+            throw new URLSignException("No Such Algorithm.", e);
+        }
+    }
+
+    public KeyFactory getKeyFactory(String algorithm) throws URLSignException {
+        KeyFactory keyFactory = keyFactories.get(algorithm);
+        if (keyFactory == null) {
+            try {
+                keyFactory = KeyFactory.getInstance(algorithm, getProvider("KeyFactory", algorithm));
+            } catch (NoSuchAlgorithmException e) {
+                throw new URLSignException("No Such Algorithm.", e);
+            }
+            KeyFactory previous = keyFactories.putIfAbsent(algorithm, keyFactory);
+            if (previous != null) {
+                keyFactory = previous;
+            }
+        }
+        return keyFactory;
+    }
+
+    private Provider getProvider(String type, String algorithm) {
+        String service = type + "." + algorithm;
+        Provider provider = providers.get(service);
+        if (provider == null) {
+            provider = findProvider(type, algorithm);
+            providers.putIfAbsent(service, provider);
+        }
+        return provider;
+    }
+
+    private Provider findProvider(String type, String algorithm) {
+        if (this == JDK) {
+            for (Provider provider : Security.getProviders()) {
+                if (!BouncyCastleProvider.PROVIDER_NAME.equals(provider.getName()) && provider.getService(type, algorithm) != null) {
+                    return provider;
+                }
+            }
+        }
+        return BouncyCastle.PROVIDER;
+    }
+
+    /*
+     * Holder class: BouncyCastle is only loaded when the first algorithm needs it.
+     */
+    private static final class BouncyCastle {
+        private static final Provider PROVIDER = new BouncyCastleProvider();
+    }
+}
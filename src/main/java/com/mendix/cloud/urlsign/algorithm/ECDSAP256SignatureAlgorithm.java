@@ -0,0 +1,132 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import java.security.Key;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.security.interfaces.ECKey;
+
+/*
+ * ECDSA on P-256 with SHA-256. Signatures use the fixed-length r || s encoding instead of DER. BouncyCastle
+ * produces that encoding itself; with the JDK backend, the DER signatures of SHA256withECDSA are converted.
+ */
+class ECDSAP256SignatureAlgorithm extends JcaSignatureAlgorithm {
+
+    private static final int FIELD_SIZE = 256;
+    private static final int SCALAR_LENGTH = 32;
+    private static final String PLAIN_ALGORITHM = "SHA256withPLAIN-ECDSA";
+    private static final String DER_ALGORITHM = "SHA256withECDSA";
+    private static final byte DER_SEQUENCE = 0x30;
+    private static final byte DER_INTEGER = 0x02;
+
+    ECDSAP256SignatureAlgorithm() {
+        super("es256", PLAIN_ALGORITHM, 2 * SCALAR_LENGTH, "EC", "ECDSA");
+    }
+
+    @Override
+    public boolean supports(Key key) {
+        return super.supports(key) && key instanceof ECKey && ((ECKey) key).getParams().getCurve().getField().getFieldSize() == FIELD_SIZE;
+    }
+
+    @Override
+    public SignatureContext newContext() throws URLSignException {
+        CryptoBackend backend = CryptoBackend.getDefault();
+        if (backend == CryptoBackend.BOUNCY_CASTLE) {
+            return super.newContext();
+        }
+        return new DerSignatureContext(backend.newSignature(DER_ALGORITHM));
+    }
+
+    private static final class DerSignatureContext extends JcaSignatureContext {
+
+        private DerSignatureContext(Signature signature) {
+            super(signature);
+        }
+
+        @Override
+        public byte[] sign() throws SignatureException {
+            return toPlain(super.sign());
+        }
+
+        @Override
+        public boolean verify(byte[] signatureBytes) throws SignatureException {
+            return signatureBytes.length == 2 * SCALAR_LENGTH && super.verify(toDer(signatureBytes));
+        }
+    }
+
+    /*
+     * SEQUENCE { INTEGER r, INTEGER s }, at most 72 bytes for P-256, so all lengths fit in one byte.
+     */
+    static byte[] toPlain(byte[] der) throws SignatureException {
+        if (der.length < 8 || der[0] != DER_SEQUENCE || der[1] != der.length - 2) {
+            throw new SignatureException("Invalid DER signature.");
+        }
+        byte[] plain = new byte[2 * SCALAR_LENGTH];
+        int offset = copyInteger(der, 2, plain, 0);
+        if (copyInteger(der, offset, plain, SCALAR_LENGTH) != der.length) {
+            throw new SignatureException("Invalid DER signature.");
+        }
+        return plain;
+    }
+
+    private static int copyInteger(byte[] der, int offset, byte[] plain, int plainOffset) throws SignatureException {
+        if (offset + 2 > der.length || der[offset] != DER_INTEGER) {
+            throw new SignatureException("Invalid DER signature.");
+        }
+        int length = der[offset + 1];
+        int start = offset + 2;
+        int end = start + length;
+        if (length < 1 || end > der.length) {
+            throw new SignatureException("Invalid DER signature.");
+        }
+        while (length > SCALAR_LENGTH && der[start] == 0) {
+            start++;
+            length--;
+        }
+        if (length > SCALAR_LENGTH) {
+            throw new SignatureException("Invalid DER signature.");
+        }
+        System.arraycopy(der, start, plain, plainOffset + SCALAR_LENGTH - length, length);
+        return end;
+    }
+
+    static byte[] toDer(byte[] plain) {
+        int rStart = integerStart(plain, 0);
+        int sStart = integerStart(plain, SCALAR_LENGTH);
+        int rLength = integerLength(plain, rStart, SCALAR_LENGTH);
+        int sLength = integerLength(plain, sStart, 2 * SCALAR_LENGTH);
+
+        byte[] der = new byte[6 + rLength + sLength];
+        der[0] = DER_SEQUENCE;
+        der[1] = (byte) (der.length - 2);
+        int offset = writeInteger(plain, rStart, SCALAR_LENGTH, rLength, der, 2);
+        writeInteger(plain, sStart, 2 * SCALAR_LENGTH, sLength, der, offset);
+        return der;
+    }
+
+    /*
+     * The first non-zero byte of the scalar; the last byte is kept for a zero scalar.
+     */
+    private static int integerStart(byte[] plain, int offset) {
+        int end = offset + SCALAR_LENGTH - 1;
+        while (offset < end && plain[offset] == 0) {
+            offset++;
+        }
+        return offset;
+    }
+
+    /*
+     * DER integers are signed, so a leading zero byte is needed when the high bit is set.
+     */
+    private static int integerLength(byte[] plain, int start, int end) {
+        return end - start + (plain[start] < 0 ? 1 : 0);
+    }
+
+    private static int writeInteger(byte[] plain, int start, int end, int length, byte[] der, int offset) {
+        der[offset] = DER_INTEGER;
+        der[offset + 1] = (byte) length;
+        System.arraycopy(plain, start, der, offset + 2 + length - (end - start), end - start);
+        return offset + 2 + length;
+    }
+}
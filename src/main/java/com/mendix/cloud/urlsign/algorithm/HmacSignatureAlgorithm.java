@@ -0,0 +1,96 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/*
+ * A symmetric SignatureAlgorithm: signer and verifier share one secret key, and verification recomputes
+ * the MAC and compares it in constant time.
+ */
+class HmacSignatureAlgorithm implements SignatureAlgorithm {
+
+    private final String id;
+    private final String macAlgorithm;
+    private final int signatureLength;
+
+    HmacSignatureAlgorithm(String id, String macAlgorithm, int signatureLength) {
+        this.id = id;
+        this.macAlgorithm = macAlgorithm;
+        this.signatureLength = signatureLength;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean supports(Key key) {
+        return key instanceof SecretKey;
+    }
+
+    @Override
+    public int getSignatureLength(Key key) {
+        return signatureLength;
+    }
+
+    @Override
+    public SignatureContext newContext() throws URLSignException {
+        try {
+            return new MacSignatureContext(Mac.getInstance(macAlgorithm));
+        } catch (NoSuchAlgorithmException e) {
+            throw new URLSignException("No Such Algorithm.", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+    private static final class MacSignatureContext implements SignatureContext {
+
+        private final Mac mac;
+
+        private MacSignatureContext(Mac mac) {
+            this.mac = mac;
+        }
+
+        @Override
+        public void initSign(Key key) throws InvalidKeyException {
+            mac.init(key);
+        }
+
+        @Override
+        public void initVerify(Key key) throws InvalidKeyException {
+            mac.init(key);
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            mac.update(data, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer data) {
+            mac.update(data);
+        }
+
+        @Override
+        public byte[] sign() {
+            return mac.doFinal();
+        }
+
+        @Override
+        public boolean verify(byte[] signature) {
+            return MessageDigest.isEqual(mac.doFinal(), signature);
+        }
+    }
+}
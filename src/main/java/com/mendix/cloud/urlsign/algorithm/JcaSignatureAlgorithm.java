@@ -0,0 +1,102 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import java.nio.ByteBuffer;
+import java.security.*;
+
+/*
+ * A SignatureAlgorithm backed by a java.security.Signature of the default CryptoBackend.
+ */
+class JcaSignatureAlgorithm implements SignatureAlgorithm {
+
+    private final String id;
+    private final String signatureAlgorithm;
+    private final int signatureLength;
+    private final String[] keyAlgorithms;
+
+    JcaSignatureAlgorithm(String id, String signatureAlgorithm, int signatureLength, String... keyAlgorithms) {
+        this.id = id;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.signatureLength = signatureLength;
+        this.keyAlgorithms = keyAlgorithms;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean supports(Key key) {
+        if (!(key instanceof PrivateKey || key instanceof PublicKey)) {
+            return false;
+        }
+        for (String keyAlgorithm : keyAlgorithms) {
+            if (keyAlgorithm.equals(key.getAlgorithm())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getSignatureLength(Key key) {
+        return signatureLength;
+    }
+
+    @Override
+    public SignatureContext newContext() throws URLSignException {
+        return new JcaSignatureContext(CryptoBackend.getDefault().newSignature(signatureAlgorithm));
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+
+    static class JcaSignatureContext implements SignatureContext {
+
+        private final Signature signature;
+
+        JcaSignatureContext(Signature signature) {
+            this.signature = signature;
+        }
+
+        @Override
+        public void initSign(Key key) throws InvalidKeyException {
+            if (!(key instanceof PrivateKey)) {
+                throw new InvalidKeyException("A private key is required for signing.");
+            }
+            signature.initSign((PrivateKey) key);
+        }
+
+        @Override
+        public void initVerify(Key key) throws InvalidKeyException {
+            if (!(key instanceof PublicKey)) {
+                throw new InvalidKeyException("A public key is required for verification.");
+            }
+            signature.initVerify((PublicKey) key);
+        }
+
+        @Override
+        public void update(byte[] data, int offset, int length) throws SignatureException {
+            signature.update(data, offset, length);
+        }
+
+        @Override
+        public void update(ByteBuffer data) throws SignatureException {
+            signature.update(data);
+        }
+
+        @Override
+        public byte[] sign() throws SignatureException {
+            return signature.sign();
+        }
+
+        @Override
+        public boolean verify(byte[] signatureBytes) throws SignatureException {
+            return signature.verify(signatureBytes);
+        }
+    }
+}
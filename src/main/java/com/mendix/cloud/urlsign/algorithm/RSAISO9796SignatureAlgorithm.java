@@ -0,0 +1,20 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import java.security.Key;
+import java.security.interfaces.RSAKey;
+
+/*
+ * The original SHA1withRSA/ISO9796-2 scheme. URLs signed with it carry no algorithm parameter. Only
+ * BouncyCastle implements it, whatever the CryptoBackend.
+ */
+class RSAISO9796SignatureAlgorithm extends JcaSignatureAlgorithm {
+
+    RSAISO9796SignatureAlgorithm() {
+        super("rsa", "SHA1withRSA/ISO9796-2", -1, "RSA");
+    }
+
+    @Override
+    public int getSignatureLength(Key key) {
+        return key instanceof RSAKey ? (((RSAKey) key).getModulus().bitLength() + 7) / 8 : -1;
+    }
+}
@@ -0,0 +1,22 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import java.security.Key;
+
+public interface SignatureAlgorithm {
+
+    /*
+     * The value of the algorithm query parameter in URLs signed with this algorithm.
+     */
+    String getId();
+
+    boolean supports(Key key);
+
+    /*
+     * The length in bytes of every signature made with the given key, or -1 if it varies.
+     */
+    int getSignatureLength(Key key);
+
+    SignatureContext newContext() throws URLSignException;
+}
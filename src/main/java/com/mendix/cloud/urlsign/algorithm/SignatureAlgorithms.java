@@ -0,0 +1,39 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import java.security.Key;
+
+public final class SignatureAlgorithms {
+
+    public static final SignatureAlgorithm RSA_ISO9796_2 = new RSAISO9796SignatureAlgorithm();
+    public static final SignatureAlgorithm ED25519 = new JcaSignatureAlgorithm("ed25519", "Ed25519", 64, "Ed25519", "EdDSA");
+    public static final SignatureAlgorithm ECDSA_P256 = new ECDSAP256SignatureAlgorithm();
+    public static final SignatureAlgorithm HMAC_SHA256 = new HmacSignatureAlgorithm("hs256", "HmacSHA256", 32);
+
+    private static final SignatureAlgorithm[] ALL = {RSA_ISO9796_2, ED25519, ECDSA_P256, HMAC_SHA256};
+
+    private SignatureAlgorithms() {
+    }
+
+    public static SignatureAlgorithm forId(String id) throws URLSignException {
+        for (SignatureAlgorithm algorithm : ALL) {
+            if (algorithm.getId().equals(id)) {
+                return algorithm;
+            }
+        }
+        throw new URLSignException("Unsupported signature algorithm: " + id);
+    }
+
+    /*
+     * The default algorithm for a key: RSA keys keep the original ISO9796-2 scheme.
+     */
+    public static SignatureAlgorithm forKey(Key key) throws URLSignException {
+        for (SignatureAlgorithm algorithm : ALL) {
+            if (algorithm.supports(key)) {
+                return algorithm;
+            }
+        }
+        throw new URLSignException("No signature algorithm for " + key.getAlgorithm() + " keys.");
+    }
+}
@@ -0,0 +1,25 @@
+package com.mendix.cloud.urlsign.algorithm;
+
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.SignatureException;
+
+/*
+ * One reusable signing or verification state, in the shape of java.security.Signature so that MACs fit
+ * in as well. Not thread-safe; URLSigner and URLVerifier pool them.
+ */
+public interface SignatureContext {
+
+    void initSign(Key key) throws InvalidKeyException;
+
+    void initVerify(Key key) throws InvalidKeyException;
+
+    void update(byte[] data, int offset, int length) throws SignatureException;
+
+    void update(ByteBuffer data) throws SignatureException;
+
+    byte[] sign() throws SignatureException;
+
+    boolean verify(byte[] signature) throws SignatureException;
+}
@@ -0,0 +1,293 @@
+package com.mendix.cloud.urlsign.cli;
+
+import com.mendix.cloud.urlsign.algorithm.CryptoBackend;
+import com.mendix.cloud.urlsign.exception.URLSignException;
+import com.mendix.cloud.urlsign.service.BulkVerifier;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.service.VerificationResult;
+import com.mendix.cloud.urlsign.util.KeyImporter;
+import com.mendix.cloud.urlsign.util.SignatureEncoding;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+
+/*
+ * Command-line entry point for pipelines. Signs or verifies newline-delimited URLs from the given files,
+ * or from stdin without files or for "-", and writes the results to stdout in input order:
+ *
+ *   sign   --key <private key file> [--ttl <seconds>] [--encoding hex|base64url] [--key-id <id>] [--one-time]
+ *   verify --key <public key file>
+ *
+ * Both accept --secret (the key file holds an HMAC secret), --threads <n>, --batch-size <n> and
+ * --backend jdk|bouncy_castle. Lines are processed in batches on a fork-join pool; blank lines are
+ * skipped. sign writes the signed URLs, verify writes "<result> <url>" lines. The throughput is reported
+ * on stderr. Exits with 0 on success, 1 if a URL cannot be signed or fails verification and 2 on usage
+ * errors.
+ */
+public final class URLSignTool {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILED = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = "Usage: urlsign sign|verify --key <key file> [--secret] [--ttl <seconds>] [--encoding hex|base64url]"
+            + " [--key-id <id>] [--one-time] [--threads <n>] [--batch-size <n>] [--backend jdk|bouncy_castle] [file...]";
+    private static final String STDIN = "-";
+
+    private URLSignTool() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    static int run(String[] args, InputStream in, OutputStream out, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        CryptoBackend previousBackend = CryptoBackend.getDefault();
+        CryptoBackend.setDefault(options.backend);
+        ForkJoinPool pool = new ForkJoinPool(options.threads);
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16));
+        try {
+            long start = System.nanoTime();
+            int status = options.sign ? sign(options, in, writer, pool, err, start) : verify(options, in, writer, pool, err, start);
+            writer.flush();
+            if (writer.checkError()) {
+                err.println("Error while writing output.");
+                return EXIT_FAILED;
+            }
+            return status;
+        } catch (URLSignException | IOException e) {
+            writer.flush();
+            err.println(e.getMessage());
+            return EXIT_FAILED;
+        } finally {
+            pool.shutdown();
+            CryptoBackend.setDefault(previousBackend);
+        }
+    }
+
+    private static int sign(Options options, InputStream in, PrintWriter writer, ForkJoinPool pool, PrintStream err, long start) throws URLSignException, IOException {
+        Key key = options.secret ? KeyImporter.importSecretKey(options.keyFile) : KeyImporter.importPrivateKey(options.keyFile);
+        long count = 0;
+        try (URLSigner urlSigner = new URLSigner(key)) {
+            urlSigner.setSignatureEncoding(options.encoding);
+            urlSigner.setKeyId(options.keyId);
+            urlSigner.setOneTimeUse(options.oneTime);
+            for (String input : options.inputs) {
+                try (URIReader reader = new URIReader(open(input, in), input)) {
+                    List<URI> batch;
+                    while (!(batch = reader.readBatch(options.batchSize)).isEmpty()) {
+                        for (URI signed : urlSigner.signAll(batch, options.ttl, pool)) {
+                            writer.println(signed);
+                        }
+                        count += batch.size();
+                    }
+                }
+            }
+        }
+        report(err, "Signed", count, start, null);
+        return EXIT_OK;
+    }
+
+    private static int verify(Options options, InputStream in, PrintWriter writer, ForkJoinPool pool, PrintStream err, long start) throws URLSignException, IOException {
+        Key key = options.secret ? KeyImporter.importSecretKey(options.keyFile) : KeyImporter.importPublicKey(options.keyFile);
+        Map<VerificationResult, Long> counts = new EnumMap<>(VerificationResult.class);
+        try (URLVerifier urlVerifier = new URLVerifier(key)) {
+            BulkVerifier bulkVerifier = new BulkVerifier(urlVerifier, pool, options.batchSize);
+            BiConsumer<String, VerificationResult> consumer = (url, result) -> writer.append(result.name()).append(' ').println(url);
+            for (String input : options.inputs) {
+                Map<VerificationResult, Long> inputCounts = STDIN.equals(input)
+                        ? bulkVerifier.verify(in, System.currentTimeMillis(), consumer)
+                        : bulkVerifier.verify(Paths.get(input), System.currentTimeMillis(), consumer);
+                inputCounts.forEach((result, count) -> counts.merge(result, count, Long::sum));
+            }
+        }
+        long total = 0;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        report(err, "Verified", total, start, counts);
+        return counts.getOrDefault(VerificationResult.VALID, 0L) == total ? EXIT_OK : EXIT_FAILED;
+    }
+
+    private static BufferedReader open(String input, InputStream in) throws IOException {
+        if (STDIN.equals(input)) {
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        return Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+    }
+
+    private static void report(PrintStream err, String action, long count, long start, Map<VerificationResult, Long> counts) {
+        double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+        StringBuilder report = new StringBuilder(String.format(Locale.ROOT, "%s %d URLs in %.3f s (%.0f URLs/s)", action, count, seconds, count / seconds));
+        if (counts != null) {
+            for (Map.Entry<VerificationResult, Long> entry : counts.entrySet()) {
+                if (entry.getValue() > 0) {
+                    report.append(", ").append(entry.getKey()).append(": ").append(entry.getValue());
+                }
+            }
+        }
+        err.println(report);
+    }
+
+    private static final class URIReader implements Closeable {
+
+        private final BufferedReader reader;
+        private final String input;
+        private long lineNumber;
+
+        private URIReader(BufferedReader reader, String input) {
+            this.reader = reader;
+            this.input = input;
+        }
+
+        private List<URI> readBatch(int batchSize) throws IOException, URLSignException {
+            List<URI> batch = new ArrayList<>(batchSize);
+            String line;
+            while (batch.size() < batchSize && (line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (!line.isEmpty()) {
+                    try {
+                        batch.add(new URI(line));
+                    } catch (URISyntaxException e) {
+                        throw new URLSignException("Malformed URL on line " + lineNumber + " of " + input + ".", e);
+                    }
+                }
+            }
+            return batch;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class Options {
+
+        private boolean sign;
+        private File keyFile;
+        private boolean secret;
+        private int ttl = 3600;
+        private SignatureEncoding encoding = SignatureEncoding.HEX;
+        private String keyId;
+        private boolean oneTime;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int batchSize = BulkVerifier.DEFAULT_BATCH_SIZE;
+        private CryptoBackend backend = CryptoBackend.getDefault();
+        private final List<String> inputs = new ArrayList<>();
+
+        private static Options parse(String[] args) {
+            if (args.length == 0 || !("sign".equals(args[0]) || "verify".equals(args[0]))) {
+                throw new IllegalArgumentException("Missing command.");
+            }
+            Options options = new Options();
+            options.sign = "sign".equals(args[0]);
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--key":
+                        options.keyFile = new File(value(args, ++i, arg));
+                        break;
+                    case "--secret":
+                        options.secret = true;
+                        break;
+                    case "--ttl":
+                        options.ttl = intValue(args, ++i, arg, 1);
+                        break;
+                    case "--encoding":
+                        options.encoding = enumValue(SignatureEncoding.class, args, ++i, arg);
+                        break;
+                    case "--key-id":
+                        options.keyId = value(args, ++i, arg);
+                        break;
+                    case "--one-time":
+                        options.oneTime = true;
+                        break;
+                    case "--threads":
+                        options.threads = intValue(args, ++i, arg, 1);
+                        break;
+                    case "--batch-size":
+                        options.batchSize = intValue(args, ++i, arg, 1);
+                        break;
+                    case "--backend":
+                        options.backend = enumValue(CryptoBackend.class, args, ++i, arg);
+                        break;
+                    default:
+                        if (arg.startsWith("--")) {
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        }
+                        options.inputs.add(arg);
+                }
+            }
+            if (options.keyFile == null) {
+                throw new IllegalArgumentException("Missing --key.");
+            }
+            if (options.inputs.isEmpty()) {
+                options.inputs.add(STDIN);
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int i, String option) {
+            if (i >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option + ".");
+            }
+            return args[i];
+        }
+
+        private static int intValue(String[] args, int i, String option, int min) {
+            try {
+                int value = Integer.parseInt(value(args, i, option));
+                if (value < min) {
+                    throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+                }
+                return value;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + option + ": " + args[i]);
+            }
+        }
+
+        private static <E extends Enum<E>> E enumValue(Class<E> type, String[] args, int i, String option) {
+            String value = value(args, i, option);
+            for (E constant : type.getEnumConstants()) {
+                if (constant.name().equalsIgnoreCase(value)) {
+                    return constant;
+                }
+            }
+            throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mendix.cloud.urlsign.exception;
+
+/*
+ * Carries a URLSignException out of streams and executor tasks, which cannot throw checked exceptions.
+ */
+public class UncheckedURLSignException extends RuntimeException
+{
+    public UncheckedURLSignException(URLSignException cause)
+    {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public URLSignException getCause()
+    {
+        return (URLSignException) super.getCause();
+    }
+}
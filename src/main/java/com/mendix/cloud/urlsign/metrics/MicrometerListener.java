@@ -0,0 +1,49 @@
+package com.mendix.cloud.urlsign.metrics;
+
+import com.mendix.cloud.urlsign.service.VerificationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Publishes to a Micrometer registry: a timer <prefix>.operation tagged with the operation, and a counter
+ * <prefix>.verification tagged with the result. Micrometer is an optional dependency of this library;
+ * only applications that use this class need it on their classpath.
+ */
+public class MicrometerListener implements URLSignListener {
+
+    public static final String DEFAULT_PREFIX = "urlsign";
+
+    private final Timer[] timers = new Timer[Operation.values().length];
+    private final Counter[] counters = new Counter[VerificationResult.values().length];
+
+    public MicrometerListener(MeterRegistry registry) {
+        this(registry, DEFAULT_PREFIX);
+    }
+
+    public MicrometerListener(MeterRegistry registry, String prefix) {
+        for (Operation operation : Operation.values()) {
+            timers[operation.ordinal()] = Timer.builder(prefix + ".operation")
+                    .tag("operation", operation.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (VerificationResult result : VerificationResult.values()) {
+            counters[result.ordinal()] = Counter.builder(prefix + ".verification")
+                    .tag("result", result.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void onTiming(Operation operation, long durationNanos) {
+        timers[operation.ordinal()].record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onVerification(VerificationResult result) {
+        counters[result.ordinal()].increment();
+    }
+}
@@ -0,0 +1,28 @@
+package com.mendix.cloud.urlsign.metrics;
+
+/*
+ * The timed steps of key import, signing and verification.
+ */
+public enum Operation {
+
+    /*
+     * Turning key bytes into a key object.
+     */
+    KEY_IMPORT,
+
+    /*
+     * Building the URL to sign: parsing, adding the parameters and appending the signature.
+     */
+    SIGN_BUILD,
+
+    SIGN_CRYPTO,
+
+    /*
+     * The checks on the raw query string that run before anything else.
+     */
+    VERIFY_PRECHECK,
+
+    VERIFY_CANONICALIZE,
+
+    VERIFY_CRYPTO
+}
@@ -0,0 +1,99 @@
+package com.mendix.cloud.urlsign.metrics;
+
+import com.mendix.cloud.urlsign.service.VerificationResult;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Dependency-free metrics: counts per verification result, and per operation a count, a total and a
+ * latency histogram with power-of-two nanosecond buckets, so percentiles are accurate to within a factor
+ * of two.
+ */
+public class StatisticsListener implements URLSignListener {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] results = newAdders(VerificationResult.values().length);
+    private final LongAdder[] counts = newAdders(Operation.values().length);
+    private final LongAdder[] totals = newAdders(Operation.values().length);
+    private final LongAdder[][] histograms = new LongAdder[Operation.values().length][];
+
+    public StatisticsListener() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = newAdders(BUCKETS);
+        }
+    }
+
+    @Override
+    public void onTiming(Operation operation, long durationNanos) {
+        int index = operation.ordinal();
+        counts[index].increment();
+        totals[index].add(durationNanos);
+        histograms[index][bucket(durationNanos)].increment();
+    }
+
+    @Override
+    public void onVerification(VerificationResult result) {
+        results[result.ordinal()].increment();
+    }
+
+    public long getCount(VerificationResult result) {
+        return results[result.ordinal()].sum();
+    }
+
+    public long getCount(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    public long getTotalNanos(Operation operation) {
+        return totals[operation.ordinal()].sum();
+    }
+
+    /*
+     * An upper bound for the given percentile (0 to 100) of the operation's durations, or 0 without data.
+     */
+    public long getPercentileNanos(Operation operation, double percentile) {
+        LongAdder[] histogram = histograms[operation.ordinal()];
+        long[] bucketCounts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            bucketCounts[i] = histogram[i].sum();
+            total += bucketCounts[i];
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank && seen > 0) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (LongAdder adder : results) {
+            adder.reset();
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i].reset();
+            totals[i].reset();
+            for (LongAdder adder : histograms[i]) {
+                adder.reset();
+            }
+        }
+    }
+
+    // Bucket i holds durations in [2^(i-1), 2^i).
+    private static int bucket(long durationNanos) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, durationNanos)));
+    }
+
+    private static LongAdder[] newAdders(int size) {
+        LongAdder[] adders = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mendix.cloud.urlsign.metrics;
+
+import com.mendix.cloud.urlsign.service.VerificationResult;
+
+/*
+ * Receives timings and verification outcomes from URLSigner, URLVerifier and KeyImporter. Listeners are
+ * called on the hot path, from many threads at once, so they must be thread-safe and cheap. Without a
+ * listener nothing is measured at all.
+ */
+public interface URLSignListener {
+
+    default void onTiming(Operation operation, long durationNanos) {
+    }
+
+    /*
+     * Called once per checked URL, including cache hits and early rejections.
+     */
+    default void onVerification(VerificationResult result) {
+    }
+}
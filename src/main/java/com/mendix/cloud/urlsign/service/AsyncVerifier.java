@@ -0,0 +1,101 @@
+package com.mendix.cloud.urlsign.service;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.Closeable;
+import java.net.URI;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Runs verification on a dedicated, bounded pool of crypto threads, so that I/O and event-loop threads
+ * never do the signature math. When all threads are busy and the queue is full, the returned future fails
+ * at once with a RejectedExecutionException instead of queueing more work: callers should shed load (e.g.
+ * answer 503) rather than wait.
+ */
+public class AsyncVerifier implements Closeable {
+
+    public static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    private final URLChecker checker;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder rejected = new LongAdder();
+
+    public AsyncVerifier(URLChecker checker) {
+        this(checker, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public AsyncVerifier(URLChecker checker, int threads, int queueCapacity) {
+        this.checker = checker;
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CryptoThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<VerificationResult> check(URI uri) {
+        CompletableFuture<VerificationResult> future = new CompletableFuture<>();
+        submit(future, () -> future.complete(checker.check(uri)));
+        return future;
+    }
+
+    /*
+     * The request is read on a crypto thread, so it must stay valid until the future completes, as it does
+     * in Servlet 3.1 async mode.
+     */
+    public CompletableFuture<VerificationResult> check(HttpServletRequest request) {
+        CompletableFuture<VerificationResult> future = new CompletableFuture<>();
+        submit(future, () -> future.complete(checker.check(request)));
+        return future;
+    }
+
+    /*
+     * Verifications submitted or running but not yet completed.
+     */
+    public int getPendingCount() {
+        return executor.getQueue().size() + executor.getActiveCount();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void submit(CompletableFuture<VerificationResult> future, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private static final class CryptoThreadFactory implements ThreadFactory {
+
+        private final int pool = POOL_COUNTER.incrementAndGet();
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "urlsign-verify-" + pool + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
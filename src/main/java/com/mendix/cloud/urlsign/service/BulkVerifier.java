@@ -0,0 +1,176 @@
+package com.mendix.cloud.urlsign.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/*
+ * Offline verification of newline-delimited URLs, e.g. from access logs. URLs are read in batches; each
+ * batch is verified in parallel on a fork-join pool while the next one is read, and the results are
+ * passed to the consumer in input order on the calling thread. Expiry is evaluated against a fixed
+ * point in time instead of the current clock, and malformed URLs get a verdict instead of an exception.
+ * Blank lines are skipped. One-time URLs are checked without consuming their nonces, so auditing a log
+ * never invalidates URLs that are still live; REPLAYED is therefore never reported.
+ */
+public class BulkVerifier {
+
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    private static final int MAP_REGION_SIZE = Integer.MAX_VALUE;
+
+    private final URLVerifier urlVerifier;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    public BulkVerifier(URLVerifier urlVerifier) {
+        this(urlVerifier, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    public BulkVerifier(URLVerifier urlVerifier, ForkJoinPool pool, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.urlVerifier = urlVerifier;
+        this.pool = pool;
+        this.batchSize = batchSize;
+    }
+
+    /*
+     * Returns the number of URLs per result.
+     */
+    public Map<VerificationResult, Long> verify(Reader reader, long timestampNow, BiConsumer<String, VerificationResult> consumer) throws IOException {
+        BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        return verify(bufferedReader::readLine, timestampNow, consumer);
+    }
+
+    public Map<VerificationResult, Long> verify(InputStream inputStream, long timestampNow, BiConsumer<String, VerificationResult> consumer) throws IOException {
+        return verify(new InputStreamReader(inputStream, StandardCharsets.UTF_8), timestampNow, consumer);
+    }
+
+    /*
+     * Reads the UTF-8 file through a memory mapping instead of a Reader.
+     */
+    public Map<VerificationResult, Long> verify(Path file, long timestampNow, BiConsumer<String, VerificationResult> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return verify(new MappedLineSource(channel, MAP_REGION_SIZE), timestampNow, consumer);
+        }
+    }
+
+    private Map<VerificationResult, Long> verify(LineSource source, long timestampNow, BiConsumer<String, VerificationResult> consumer) throws IOException {
+        long[] counts = new long[VerificationResult.values().length];
+        String[] urls = readBatch(source);
+        while (urls.length > 0) {
+            String[] batch = urls;
+            VerificationResult[] results = new VerificationResult[batch.length];
+            ForkJoinTask<?> task = pool.submit(() -> IntStream.range(0, batch.length).parallel()
+                    .forEach(i -> results[i] = urlVerifier.check(batch[i], timestampNow, false)));
+            urls = readBatch(source);
+            task.join();
+            for (int i = 0; i < batch.length; i++) {
+                counts[results[i].ordinal()]++;
+                consumer.accept(batch[i], results[i]);
+            }
+        }
+
+        Map<VerificationResult, Long> summary = new EnumMap<>(VerificationResult.class);
+        for (VerificationResult result : VerificationResult.values()) {
+            summary.put(result, counts[result.ordinal()]);
+        }
+        return summary;
+    }
+
+    private String[] readBatch(LineSource source) throws IOException {
+        String[] batch = new String[batchSize];
+        int size = 0;
+        String line;
+        while (size < batchSize && (line = source.next()) != null) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+                batch[size++] = line;
+            }
+        }
+        if (size < batchSize) {
+            String[] trimmed = new String[size];
+            System.arraycopy(batch, 0, trimmed, 0, size);
+            return trimmed;
+        }
+        return batch;
+    }
+
+    interface LineSource {
+        String next() throws IOException;
+    }
+
+    /*
+     * Maps the file in regions of at most regionSize bytes. A line that crosses the end of a region is
+     * re-read from the start of the next mapping, so no line may be longer than a region.
+     */
+    static final class MappedLineSource implements LineSource {
+
+        private final FileChannel channel;
+        private final int regionSize;
+        private final long size;
+        private long offset;
+        private MappedByteBuffer region;
+
+        MappedLineSource(FileChannel channel, int regionSize) throws IOException {
+            this.channel = channel;
+            this.regionSize = regionSize;
+            size = channel.size();
+        }
+
+        @Override
+        public String next() throws IOException {
+            while (true) {
+                if (region == null || !region.hasRemaining()) {
+                    long position = region == null ? 0 : offset + region.limit();
+                    if (position >= size) {
+                        return null;
+                    }
+                    map(position);
+                }
+                int start = region.position();
+                for (int i = start; i < region.limit(); i++) {
+                    if (region.get(i) == '\n') {
+                        region.position(i + 1);
+                        return decode(start, i);
+                    }
+                }
+                if (offset + region.limit() == size) {
+                    region.position(region.limit());
+                    return decode(start, region.limit());
+                }
+                if (start == 0) {
+                    throw new IOException("Line longer than " + regionSize + " bytes at offset " + offset + ".");
+                }
+                map(offset + start);
+            }
+        }
+
+        private void map(long position) throws IOException {
+            offset = position;
+            region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, regionSize));
+        }
+
+        private String decode(int start, int end) {
+            ByteBuffer line = region.duplicate();
+            line.position(start);
+            line.limit(end);
+            return StandardCharsets.UTF_8.decode(line).toString();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.mendix.cloud.urlsign.service;
+
+/*
+ * Result of URLCanonicalizer: the part of a signed URL that is covered by its signature, together with
+ * the values of the expire, signature, algorithm and nonce query parameters (null when absent).
+ */
+final class CanonicalURL {
+
+    private final CharSequence signedPart;
+    private final String expire;
+    private final String signature;
+    private final String algorithm;
+    private final String nonce;
+
+    CanonicalURL(CharSequence signedPart, String expire, String signature, String algorithm, String nonce) {
+        this.signedPart = signedPart;
+        this.expire = expire;
+        this.signature = signature;
+        this.algorithm = algorithm;
+        this.nonce = nonce;
+    }
+
+    CharSequence getSignedPart() {
+        return signedPart;
+    }
+
+    String getExpire() {
+        return expire;
+    }
+
+    String getSignature() {
+        return signature;
+    }
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    String getNonce() {
+        return nonce;
+    }
+}
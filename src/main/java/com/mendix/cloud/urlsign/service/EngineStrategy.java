@@ -0,0 +1,37 @@
+package com.mendix.cloud.urlsign.service;
+
+/*
+ * Decides how a URLSigner or URLVerifier shares its Signature instances between threads:
+ * - pooled: a bounded, lock-free pool; the footprint stays small when many threads sign occasionally.
+ * - threadLocal: one instance per thread; no shared state at all, best for a fixed set of busy threads.
+ */
+public abstract class EngineStrategy {
+
+    public static final EngineStrategy DEFAULT = pooled(PooledSignatureEngine.DEFAULT_MAX_IDLE);
+
+    private EngineStrategy() {
+    }
+
+    public static EngineStrategy pooled(final int maxIdle) {
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1.");
+        }
+        return new EngineStrategy() {
+            @Override
+            SignatureEngine newEngine(SignatureFactory factory) {
+                return new PooledSignatureEngine(factory, maxIdle);
+            }
+        };
+    }
+
+    public static EngineStrategy threadLocal() {
+        return new EngineStrategy() {
+            @Override
+            SignatureEngine newEngine(SignatureFactory factory) {
+                return new ThreadLocalSignatureEngine(factory);
+            }
+        };
+    }
+
+    abstract SignatureEngine newEngine(SignatureFactory factory);
+}
@@ -0,0 +1,124 @@
+package com.mendix.cloud.urlsign.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * NonceStore for a single node. Nonces are spread over lock stripes, each a hash map for the lookups and
+ * a queue ordered by expiry, from which entries are dropped once their URL has expired. An unexpired nonce
+ * is never evicted, as that would make its URL valid again: when a stripe holds its share of maxEntries,
+ * further nonces are refused until older ones expire.
+ */
+public class InMemoryNonceStore implements NonceStore {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int maxEntries;
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    public InMemoryNonceStore(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Store size must be at least 1.");
+        }
+        this.maxEntries = maxEntries;
+        int stripeSize = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    @Override
+    public boolean consume(String nonce, long timestampExpiry) {
+        return consume(nonce, timestampExpiry, System.currentTimeMillis());
+    }
+
+    boolean consume(String nonce, long timestampExpiry, long timestampNow) {
+        Stripe stripe = stripeFor(nonce);
+        synchronized (stripe) {
+            stripe.evictExpired(timestampNow);
+            if (stripe.expiries.containsKey(nonce)) {
+                replays.increment();
+                return false;
+            }
+            if (stripe.expiries.size() >= stripe.maxSize) {
+                overflows.increment();
+                return false;
+            }
+            stripe.expiries.put(nonce, timestampExpiry);
+            stripe.queue.add(new Entry(nonce, timestampExpiry));
+            return true;
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.expiries.size();
+            }
+        }
+        return size;
+    }
+
+    /*
+     * The number of nonces refused because they were already used.
+     */
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    /*
+     * The number of nonces refused because the store was full.
+     */
+    public long getOverflowCount() {
+        return overflows.sum();
+    }
+
+    private Stripe stripeFor(String nonce) {
+        int hash = nonce.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static final class Stripe {
+
+        private final int maxSize;
+        private final Map<String, Long> expiries = new HashMap<>();
+        private final PriorityQueue<Entry> queue = new PriorityQueue<>();
+
+        private Stripe(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        private void evictExpired(long timestampNow) {
+            Entry eldest;
+            while ((eldest = queue.peek()) != null && eldest.timestampExpiry < timestampNow) {
+                queue.poll();
+                expiries.remove(eldest.nonce);
+            }
+        }
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private final String nonce;
+        private final long timestampExpiry;
+
+        private Entry(String nonce, long timestampExpiry) {
+            this.nonce = nonce;
+            this.timestampExpiry = timestampExpiry;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Long.compare(timestampExpiry, other.timestampExpiry);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+import com.mendix.cloud.urlsign.exception.UncheckedURLSignException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * The verifiers of all active keys, indexed by the key ID that URLSigner.setKeyId() puts in signed URLs.
+ * The ring is an immutable snapshot behind an AtomicReference: lookups are a plain map read without
+ * locks, and every change swaps in a new copy, so keys can be rotated while traffic is flowing.
+ * Verifiers that are replaced or removed are closed.
+ */
+public class KeyRing implements Closeable {
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(Collections.emptyMap(), null));
+
+    public URLVerifier get(String keyId) {
+        Snapshot current = snapshot.get();
+        return current.verifiers.get(keyId != null ? keyId : current.defaultKeyId);
+    }
+
+    public Set<String> getKeyIds() {
+        return Collections.unmodifiableSet(snapshot.get().verifiers.keySet());
+    }
+
+    public void put(String keyId, URLVerifier verifier) {
+        Snapshot previous;
+        Map<String, URLVerifier> verifiers;
+        do {
+            previous = snapshot.get();
+            verifiers = new HashMap<>(previous.verifiers);
+            verifiers.put(keyId, verifier);
+        } while (!snapshot.compareAndSet(previous, new Snapshot(verifiers, previous.defaultKeyId)));
+        closeReplaced(previous.verifiers.get(keyId), verifier);
+    }
+
+    public void remove(String keyId) {
+        Snapshot previous;
+        Map<String, URLVerifier> verifiers;
+        do {
+            previous = snapshot.get();
+            if (!previous.verifiers.containsKey(keyId)) {
+                return;
+            }
+            verifiers = new HashMap<>(previous.verifiers);
+            verifiers.remove(keyId);
+        } while (!snapshot.compareAndSet(previous, new Snapshot(verifiers, previous.defaultKeyId)));
+        closeReplaced(previous.verifiers.get(keyId), null);
+    }
+
+    /*
+     * Replaces all keys at once.
+     */
+    public void replaceAll(Map<String, URLVerifier> verifiers) {
+        Snapshot previous;
+        do {
+            previous = snapshot.get();
+        } while (!snapshot.compareAndSet(previous, new Snapshot(new HashMap<>(verifiers), previous.defaultKeyId)));
+        for (Map.Entry<String, URLVerifier> entry : previous.verifiers.entrySet()) {
+            closeReplaced(entry.getValue(), verifiers.get(entry.getKey()));
+        }
+    }
+
+    /*
+     * The key used for URLs without a keyid parameter, e.g. links signed before key IDs were introduced.
+     */
+    public void setDefaultKeyId(String defaultKeyId) {
+        Snapshot previous;
+        do {
+            previous = snapshot.get();
+        } while (!snapshot.compareAndSet(previous, new Snapshot(previous.verifiers, defaultKeyId)));
+    }
+
+    /*
+     * Imports the public key files on the executor and then replaces all keys with them in one step, so
+     * request threads never wait for key parsing. The ring is left unchanged if any file fails to load.
+     */
+    public CompletableFuture<Void> loadAsync(Map<String, File> publicKeyFiles, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, URLVerifier> verifiers = new HashMap<>();
+            try {
+                for (Map.Entry<String, File> entry : publicKeyFiles.entrySet()) {
+                    verifiers.put(entry.getKey(), new URLVerifier(entry.getValue()));
+                }
+            } catch (URLSignException e) {
+                for (URLVerifier verifier : verifiers.values()) {
+                    verifier.close();
+                }
+                throw new UncheckedURLSignException(e);
+            }
+            return verifiers;
+        }, executor).thenAccept(this::replaceAll);
+    }
+
+    @Override
+    public void close() {
+        replaceAll(Collections.emptyMap());
+    }
+
+    private static void closeReplaced(URLVerifier previous, URLVerifier current) {
+        if (previous != null && previous != current) {
+            previous.close();
+        }
+    }
+
+    private static final class Snapshot {
+
+        private final Map<String, URLVerifier> verifiers;
+        private final String defaultKeyId;
+
+        private Snapshot(Map<String, URLVerifier> verifiers, String defaultKeyId) {
+            this.verifiers = verifiers;
+            this.defaultKeyId = defaultKeyId;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Verifies URLs with the key that their keyid parameter names. The lookup is one read of the KeyRing's
+ * current snapshot, so keys can be rotated in the ring without recreating this verifier.
+ */
+public class KeyRingVerifier implements URLChecker {
+
+    private final KeyRing keyRing;
+    private final LongAdder unknownKeys = new LongAdder();
+
+    public KeyRingVerifier(KeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    public KeyRing getKeyRing() {
+        return keyRing;
+    }
+
+    public boolean verify(HttpServletRequest request) throws URLSignException {
+        VerificationResult result = check(request);
+        if (!result.isValid()) {
+            throw new URLSignException("URL Verification failed for URL: " + request.getRequestURL() + " (" + result + ")");
+        }
+        return true;
+    }
+
+    public boolean verify(URI uri) throws URLSignException {
+        VerificationResult result = check(uri);
+        if (!result.isValid()) {
+            throw new URLSignException("URL Verification failed for URL: " + uri + " (" + result + ")");
+        }
+        return true;
+    }
+
+    @Override
+    public VerificationResult check(HttpServletRequest request) {
+        URLVerifier verifier = lookup(request.getQueryString());
+        return verifier != null ? verifier.check(request) : unknownKey();
+    }
+
+    @Override
+    public VerificationResult check(URI uri) {
+        return check(uri, System.currentTimeMillis());
+    }
+
+    public VerificationResult check(URI uri, long timestampNow) {
+        URLVerifier verifier = lookup(uri.getRawQuery());
+        return verifier != null ? verifier.check(uri, timestampNow) : unknownKey();
+    }
+
+    public long getUnknownKeyCount() {
+        return unknownKeys.sum();
+    }
+
+    private URLVerifier lookup(String query) {
+        int keyIdStart = query != null ? URLCanonicalizer.findValue(query, URLVerifier.URL_KEY_ID) : -1;
+        if (keyIdStart < 0) {
+            return keyRing.get(null);
+        }
+        return keyRing.get(query.substring(keyIdStart, URLCanonicalizer.valueEnd(query, keyIdStart)));
+    }
+
+    private VerificationResult unknownKey() {
+        unknownKeys.increment();
+        return VerificationResult.UNKNOWN_KEY;
+    }
+}
@@ -0,0 +1,15 @@
+package com.mendix.cloud.urlsign.service;
+
+/*
+ * Remembers the nonces of one-time-use URLs for URLVerifier.setNonceStore(). consume() must be atomic: of
+ * concurrent calls with the same nonce, only one may succeed. A store shared by several nodes, e.g. one
+ * doing SET NX with an expiry in Redis, makes URLs single-use across all of them.
+ */
+public interface NonceStore {
+
+    /*
+     * Marks the nonce as used until timestampExpiry (epoch milliseconds), after which it may be forgotten.
+     * Returns false if the nonce was already used or cannot be recorded.
+     */
+    boolean consume(String nonce, long timestampExpiry);
+}
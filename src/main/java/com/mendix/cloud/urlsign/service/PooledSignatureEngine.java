@@ -0,0 +1,46 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/*
+ * Lock-free on the fast path: an idle instance is taken from the queue, and a new one is created when
+ * the queue is empty. At most maxIdle instances are kept around, surplus instances are left to the GC.
+ */
+class PooledSignatureEngine extends SignatureEngine {
+
+    static final int DEFAULT_MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final BlockingQueue<SignatureContext> idle;
+    private volatile boolean closed;
+
+    PooledSignatureEngine(SignatureFactory factory, int maxIdle) {
+        super(factory);
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1.");
+        }
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    @Override
+    SignatureContext acquire() throws URLSignException {
+        SignatureContext signature = idle.poll();
+        return signature != null ? signature : factory.newContext();
+    }
+
+    @Override
+    void release(SignatureContext signature) {
+        if (!closed) {
+            idle.offer(signature);
+        }
+    }
+
+    @Override
+    void close() {
+        closed = true;
+        idle.clear();
+    }
+}
@@ -0,0 +1,26 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+/*
+ * Hands out SignatureContexts so that the provider lookup in Signature.getInstance() or Mac.getInstance()
+ * happens once per instance instead of once per call. An instance is only ever held by one thread at a time;
+ * callers (re)initialize it with their key before use, since not every provider resets its state after
+ * sign(). For the same reason instances that failed halfway are safe to reuse, and callers release every
+ * instance they acquired, also on failure: a thread-local slot that is never released stays taken.
+ */
+abstract class SignatureEngine {
+
+    protected final SignatureFactory factory;
+
+    SignatureEngine(SignatureFactory factory) {
+        this.factory = factory;
+    }
+
+    abstract SignatureContext acquire() throws URLSignException;
+
+    abstract void release(SignatureContext signature);
+
+    abstract void close();
+}
@@ -0,0 +1,9 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+interface SignatureFactory {
+
+    SignatureContext newContext() throws URLSignException;
+}
@@ -0,0 +1,94 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/*
+ * Keeps one SignatureContext per thread, so a busy thread never touches shared state. A nested acquire() on
+ * a thread that already holds its instance gets a throwaway one. ThreadLocal.remove() only reaches the
+ * calling thread, so the slots are also tracked in a weak set: close() empties every slot, which releases
+ * the SignatureContexts and their keys right away. The empty slots stay in the threads' ThreadLocal maps
+ * until the ThreadLocal is collected; slots of threads that ended drop out of the set by themselves.
+ */
+class ThreadLocalSignatureEngine extends SignatureEngine {
+
+    private volatile ThreadLocal<Slot> slots = new ThreadLocal<>();
+    private final Set<Slot> allSlots = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    ThreadLocalSignatureEngine(SignatureFactory factory) {
+        super(factory);
+    }
+
+    @Override
+    SignatureContext acquire() throws URLSignException {
+        ThreadLocal<Slot> local = slots;
+        if (local == null) {
+            return factory.newContext();
+        }
+
+        Slot slot = local.get();
+        SignatureContext signature;
+        if (slot == null) {
+            signature = factory.newContext();
+            slot = new Slot(signature);
+            local.set(slot);
+            allSlots.add(slot);
+            if (slots != local) {
+                slot.signature = null;
+            }
+        } else {
+            signature = slot.signature;
+            if (slot.inUse || signature == null) {
+                return factory.newContext();
+            }
+        }
+        slot.inUse = true;
+        return signature;
+    }
+
+    @Override
+    void release(SignatureContext signature) {
+        ThreadLocal<Slot> local = slots;
+        if (local == null) {
+            return;
+        }
+
+        Slot slot = local.get();
+        if (slot != null && slot.signature == signature) {
+            slot.inUse = false;
+        }
+    }
+
+    @Override
+    void close() {
+        ThreadLocal<Slot> local = slots;
+        slots = null;
+        if (local != null) {
+            local.remove();
+        }
+        List<Slot> closed;
+        synchronized (allSlots) {
+            closed = new ArrayList<>(allSlots);
+            allSlots.clear();
+        }
+        for (Slot slot : closed) {
+            slot.signature = null;
+        }
+    }
+
+    private static final class Slot {
+
+        private volatile SignatureContext signature;
+        private boolean inUse;
+
+        private Slot(SignatureContext signature) {
+            this.signature = signature;
+        }
+    }
+}
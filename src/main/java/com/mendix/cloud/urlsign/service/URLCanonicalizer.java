@@ -0,0 +1,317 @@
+package com.mendix.cloud.urlsign.service;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Single-pass replacement for the URIBuilder round trip that URLSigner signs: scheme and authority as-is,
+ * leading slashes of the path collapsed to one, every query parameter form-decoded and re-encoded in
+ * UTF-8 (URLEncodedUtils rules: '&' and ';' separate, empty names are dropped, ' ' becomes '+'), the
+ * first signature parameter removed and the fragment appended unchanged.
+ *
+ * A URL produced by URLSigner is already in that form with the signature as its last parameter. For those
+ * the signed part is a view on the input and nothing is copied; anything else is rebuilt parameter by
+ * parameter. For URLs that java.net.URI can parse, the result is byte-identical to the URIBuilder round
+ * trip. Other input is only checked loosely: null is returned for characters outside the URI character
+ * set, broken percent escapes, a second '#' and opaque URIs, but some strings URI rejects, such as '['
+ * or ']' in the path, are still canonicalized.
+ */
+final class URLCanonicalizer {
+
+    private static final boolean[] URI_CHARS = new boolean[128];
+    private static final boolean[] FORM_SAFE = new boolean[128];
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            FORM_SAFE[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            FORM_SAFE[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            FORM_SAFE[c] = true;
+        }
+        for (char c : "-_.*".toCharArray()) {
+            FORM_SAFE[c] = true;
+        }
+        System.arraycopy(FORM_SAFE, 0, URI_CHARS, 0, FORM_SAFE.length);
+        for (char c : "!~'();/?:@&=+$,[]%#".toCharArray()) {
+            URI_CHARS[c] = true;
+        }
+    }
+
+    private URLCanonicalizer() {
+    }
+
+    static CanonicalURL canonicalize(String url) {
+        int length = url.length();
+        int queryStart = -1;
+        int fragmentStart = -1;
+        for (int i = 0; i < length; i++) {
+            char c = url.charAt(i);
+            if (!isUriChar(c)) {
+                return null;
+            }
+            if (c == '%' && (i + 2 >= length || Character.digit(url.charAt(i + 1), 16) < 0 || Character.digit(url.charAt(i + 2), 16) < 0)) {
+                return null;
+            }
+            if (c == '#') {
+                if (fragmentStart >= 0) {
+                    return null;
+                }
+                fragmentStart = i;
+            } else if (c == '?' && queryStart < 0 && fragmentStart < 0) {
+                queryStart = i;
+            }
+        }
+
+        int queryEnd = fragmentStart >= 0 ? fragmentStart : length;
+        int prefixEnd = queryStart >= 0 ? queryStart : queryEnd;
+
+        int schemeEnd = schemeEnd(url, prefixEnd);
+        int hierarchyStart = schemeEnd >= 0 ? schemeEnd + 1 : 0;
+        if (schemeEnd >= 0 && (hierarchyStart == prefixEnd || url.charAt(hierarchyStart) != '/')) {
+            // Opaque URIs (mailto:...) carry no query that URIBuilder could sign.
+            return null;
+        }
+
+        int authorityStart = -1;
+        int pathStart = hierarchyStart;
+        if (url.startsWith("//", hierarchyStart)) {
+            authorityStart = hierarchyStart + 2;
+            pathStart = authorityStart;
+            while (pathStart < prefixEnd && url.charAt(pathStart) != '/') {
+                pathStart++;
+            }
+        }
+        int normalizedPathStart = pathStart;
+        while (normalizedPathStart + 1 < prefixEnd && url.charAt(normalizedPathStart + 1) == '/' && url.charAt(normalizedPathStart) == '/') {
+            normalizedPathStart++;
+        }
+
+        boolean rebuild = fragmentStart >= 0 || normalizedPathStart != pathStart || authorityStart == pathStart;
+
+        String expire = null;
+        String signature = null;
+        String algorithm = null;
+        String nonce = null;
+        int signatureStart = -1;
+        int signatureEnd = -1;
+        if (queryStart >= 0) {
+            int position = queryStart + 1;
+            while (position < queryEnd) {
+                int end = position;
+                int nameEnd = -1;
+                while (end < queryEnd && url.charAt(end) != '&' && url.charAt(end) != ';') {
+                    if (nameEnd < 0 && url.charAt(end) == '=') {
+                        nameEnd = end;
+                    }
+                    end++;
+                }
+                if (nameEnd < 0) {
+                    nameEnd = end;
+                }
+                if (end < queryEnd && url.charAt(end) == ';') {
+                    rebuild = true;
+                }
+
+                if (nameEnd == position) {
+                    rebuild = true;
+                } else {
+                    boolean safe = isFormSafe(url, position, nameEnd) && (nameEnd == end || isFormSafe(url, nameEnd + 1, end));
+                    rebuild |= !safe;
+                    String name = safe ? null : decode(url, position, nameEnd);
+                    if (signatureStart < 0 && matches(url, position, nameEnd, name, URLVerifier.URL_SIGNATURE)) {
+                        signatureStart = position;
+                        signatureEnd = end;
+                        signature = nameEnd < end ? decode(url, nameEnd + 1, end) : null;
+                    } else if (expire == null && matches(url, position, nameEnd, name, URLVerifier.URL_EXPIRE)) {
+                        expire = nameEnd < end ? decode(url, nameEnd + 1, end) : null;
+                    } else if (algorithm == null && matches(url, position, nameEnd, name, URLVerifier.URL_ALGORITHM)) {
+                        algorithm = nameEnd < end ? decode(url, nameEnd + 1, end) : null;
+                    } else if (nonce == null && matches(url, position, nameEnd, name, URLVerifier.URL_NONCE)) {
+                        nonce = nameEnd < end ? decode(url, nameEnd + 1, end) : null;
+                    }
+                }
+                position = end + 1;
+            }
+        }
+
+        if (!rebuild && (signatureStart < 0 || signatureEnd == queryEnd)) {
+            int signedEnd = signatureStart < 0 ? length : (url.charAt(signatureStart - 1) == '?' ? signatureStart : signatureStart - 1);
+            return new CanonicalURL(CharBuffer.wrap(url, 0, signedEnd), expire, signature, algorithm, nonce);
+        }
+
+        StringBuilder signedPart = new StringBuilder(length);
+        signedPart.append(url, 0, hierarchyStart);
+        if (authorityStart >= 0 && authorityStart < pathStart) {
+            signedPart.append(url, hierarchyStart, pathStart);
+        }
+        signedPart.append(url, normalizedPathStart, prefixEnd);
+        if (queryStart >= 0) {
+            signedPart.append('?');
+            boolean first = true;
+            int position = queryStart + 1;
+            while (position < queryEnd) {
+                int end = position;
+                int nameEnd = -1;
+                while (end < queryEnd && url.charAt(end) != '&' && url.charAt(end) != ';') {
+                    if (nameEnd < 0 && url.charAt(end) == '=') {
+                        nameEnd = end;
+                    }
+                    end++;
+                }
+                if (nameEnd < 0) {
+                    nameEnd = end;
+                }
+                if (nameEnd > position && position != signatureStart) {
+                    if (!first) {
+                        signedPart.append('&');
+                    }
+                    first = false;
+                    appendFormEncoded(signedPart, url, position, nameEnd);
+                    if (nameEnd < end) {
+                        signedPart.append('=');
+                        appendFormEncoded(signedPart, url, nameEnd + 1, end);
+                    }
+                }
+                position = end + 1;
+            }
+        }
+        if (fragmentStart >= 0) {
+            signedPart.append(url, fragmentStart, length);
+        }
+        return new CanonicalURL(signedPart, expire, signature, algorithm, nonce);
+    }
+
+    /*
+     * Returns the index where the value of the first parameter with the given name starts in a raw query
+     * string, or -1 when there is no such parameter or it has no value. Only allocates for names that
+     * need form-decoding.
+     */
+    static int findValue(String query, String name) {
+        int length = query.length();
+        int position = 0;
+        while (position < length) {
+            int end = position;
+            int nameEnd = -1;
+            boolean encoded = false;
+            while (end < length && query.charAt(end) != '&' && query.charAt(end) != ';') {
+                char c = query.charAt(end);
+                if (nameEnd < 0) {
+                    if (c == '=') {
+                        nameEnd = end;
+                    } else {
+                        encoded |= c == '%' || c == '+';
+                    }
+                }
+                end++;
+            }
+            if (nameEnd > position && matches(query, position, nameEnd, encoded ? decode(query, position, nameEnd) : null, name)) {
+                return nameEnd + 1;
+            }
+            position = end + 1;
+        }
+        return -1;
+    }
+
+    static int valueEnd(String query, int valueStart) {
+        int end = valueStart;
+        while (end < query.length() && query.charAt(end) != '&' && query.charAt(end) != ';') {
+            end++;
+        }
+        return end;
+    }
+
+    private static boolean isUriChar(char c) {
+        if (c < 128) {
+            return URI_CHARS[c];
+        }
+        return !Character.isISOControl(c) && !Character.isSpaceChar(c);
+    }
+
+    private static int schemeEnd(String url, int end) {
+        for (int i = 0; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                return i > 0 ? i : -1;
+            }
+            boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+            if (!alpha && (i == 0 || !((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'))) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    // True when form-decoding and re-encoding the range gives back the same characters.
+    private static boolean isFormSafe(String url, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c >= 128 || !(FORM_SAFE[c] || c == '+')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String url, int start, int end, String decoded, String name) {
+        if (decoded != null) {
+            return decoded.equals(name);
+        }
+        return end - start == name.length() && url.regionMatches(start, name, 0, name.length());
+    }
+
+    private static void appendFormEncoded(StringBuilder target, String url, int start, int end) {
+        if (isFormSafe(url, start, end)) {
+            target.append(url, start, end);
+            return;
+        }
+        for (byte b : decode(url, start, end).getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xff;
+            if (c < 128 && FORM_SAFE[c]) {
+                target.append((char) c);
+            } else if (c == ' ') {
+                target.append('+');
+            } else {
+                target.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xf]);
+            }
+        }
+    }
+
+    // Mirrors URLEncodedUtils.urlDecode(), including its truncation of chars to bytes.
+    private static String decode(String url, int start, int end) {
+        boolean plain = true;
+        for (int i = start; i < end && plain; i++) {
+            char c = url.charAt(i);
+            plain = c != '%' && c != '+' && c < 128;
+        }
+        if (plain) {
+            return url.substring(start, end);
+        }
+
+        byte[] bytes = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '%' && end - i > 2) {
+                int high = Character.digit(url.charAt(i + 1), 16);
+                int low = Character.digit(url.charAt(i + 2), 16);
+                if (high >= 0 && low >= 0) {
+                    bytes[length++] = (byte) ((high << 4) + low);
+                } else {
+                    bytes[length++] = (byte) c;
+                    bytes[length++] = (byte) url.charAt(i + 1);
+                    bytes[length++] = (byte) url.charAt(i + 2);
+                }
+                i += 2;
+            } else if (c == '+') {
+                bytes[length++] = (byte) ' ';
+            } else {
+                bytes[length++] = (byte) c;
+            }
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,15 @@
+package com.mendix.cloud.urlsign.service;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+
+/*
+ * Exception-free verification of signed URLs, implemented by URLVerifier for one key and by KeyRingVerifier
+ * for rotating keys.
+ */
+public interface URLChecker {
+
+    VerificationResult check(URI uri);
+
+    VerificationResult check(HttpServletRequest request);
+}
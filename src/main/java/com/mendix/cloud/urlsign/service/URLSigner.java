@@ -1,29 +1,58 @@
 package com.mendix.cloud.urlsign.service;
 
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithm;
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithms;
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
 import com.mendix.cloud.urlsign.exception.URLSignException;
+import com.mendix.cloud.urlsign.exception.UncheckedURLSignException;
+import com.mendix.cloud.urlsign.metrics.Operation;
+import com.mendix.cloud.urlsign.metrics.URLSignListener;
+import com.mendix.cloud.urlsign.util.ExpiryCodec;
+import com.mendix.cloud.urlsign.util.ExpiryFormat;
 import com.mendix.cloud.urlsign.util.KeyImporter;
+import com.mendix.cloud.urlsign.util.SignatureEncoding;
 import org.apache.http.client.utils.URIBuilder;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
-import javax.xml.bind.DatatypeConverter;
+import java.io.Closeable;
 import java.io.File;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.security.*;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.TimeZone;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
-public class URLSigner {
+public class URLSigner implements Closeable {
 
     public static final String URL_EXPIRE = "expire";
     public static final String URL_SIGNATURE = "signature";
+    public static final String URL_ALGORITHM = "algorithm";
+    public static final String URL_KEY_ID = "keyid";
+    public static final String URL_NONCE = "nonce";
 
-    private static PrivateKey key;
-    private static Signature signature;
+    private static final int BATCH_CHUNKS_PER_CORE = 4;
+    private static final int NONCE_LENGTH = 16;
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final Key key;
+    private final SignatureAlgorithm algorithm;
+    private final SignatureEngine engine;
+    private ExpiryFormat expiryFormat = ExpiryFormat.TIMESTAMP;
+    private SignatureEncoding signatureEncoding = SignatureEncoding.HEX;
+    private String keyId;
+    private boolean oneTimeUse;
+    private URLSignListener listener;
 
     public URLSigner(byte[] privateKey) throws URLSignException {
         this(KeyImporter.importPrivateKey(privateKey));
@@ -37,50 +66,218 @@ public class URLSigner {
         this(KeyImporter.importPrivateKey(privateKeyFile));
     }
 
-    private URLSigner(PrivateKey privateKey) throws URLSignException {
-        key = privateKey;
+    public URLSigner(Key key) throws URLSignException {
+        this(key, EngineStrategy.DEFAULT);
+    }
 
-        try {
-            signature = Signature.getInstance("SHA1withRSA/ISO9796-2", BouncyCastleProvider.PROVIDER_NAME);
-        } catch (NoSuchAlgorithmException e) {
-            throw new URLSignException("No Such Algorithm.", e);
-        } catch (NoSuchProviderException e) {
-            throw new URLSignException("No Such Provider.", e);
+    public URLSigner(Key key, EngineStrategy engineStrategy) throws URLSignException {
+        this(key, SignatureAlgorithms.forKey(key), engineStrategy);
+    }
+
+    /*
+     * The key is a PrivateKey for the asymmetric algorithms and a SecretKey for HMAC.
+     */
+    public URLSigner(Key key, SignatureAlgorithm algorithm, EngineStrategy engineStrategy) throws URLSignException {
+        if (!algorithm.supports(key)) {
+            throw new URLSignException("Key does not match signature algorithm " + algorithm.getId() + ".");
+        }
+        this.key = key;
+        this.algorithm = algorithm;
+        engine = engineStrategy.newEngine(algorithm::newContext);
+        engine.release(engine.acquire());
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setExpiryFormat(ExpiryFormat expiryFormat) {
+        this.expiryFormat = expiryFormat;
+    }
+
+    /*
+     * BASE64URL makes the signature parameter a third shorter than HEX. Verifiers accept both, but releases
+     * from before this option only understand HEX.
+     */
+    public void setSignatureEncoding(SignatureEncoding signatureEncoding) {
+        this.signatureEncoding = signatureEncoding;
+    }
+
+    /*
+     * Adds a keyid parameter to signed URLs, so a KeyRingVerifier knows which key to check them with. Key IDs
+     * are looked up without decoding and may only contain letters, digits, '-', '_' and '.'.
+     */
+    public void setKeyId(String keyId) {
+        if (keyId != null && !keyId.matches("[A-Za-z0-9._-]+")) {
+            throw new IllegalArgumentException("Invalid key ID: " + keyId);
         }
+        this.keyId = keyId;
+    }
+
+    /*
+     * Adds a random nonce parameter to every signed URL, so that a verifier with a NonceStore accepts each
+     * URL only once.
+     */
+    public void setOneTimeUse(boolean oneTimeUse) {
+        this.oneTimeUse = oneTimeUse;
+    }
+
+    /*
+     * Reports the time spent building and signing URLs to the listener; null disables it.
+     */
+    public void setListener(URLSignListener listener) {
+        this.listener = listener;
     }
 
     public URI sign(URI uri, int ttlInSeconds) throws URLSignException {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
-        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-        Date timestampNow = new Date();
-        Date timestampExpiry = new Date(timestampNow.getTime() + (TimeUnit.SECONDS.toMillis(ttlInSeconds)));
+        return sign(uri, getExpiryValue(ttlInSeconds));
+    }
+
+    public List<URI> signAll(Collection<URI> uris, int ttlInSeconds) throws URLSignException {
+        return signAll(uris, ttlInSeconds, ForkJoinPool.commonPool());
+    }
 
-        String expiryValue = dateFormat.format(timestampExpiry);
+    /*
+     * Signs all URIs with one shared expiry, split into chunks that run on the given executor. The result
+     * is in input order; the first failure is rethrown once all chunks are done.
+     */
+    public List<URI> signAll(Collection<URI> uris, int ttlInSeconds, Executor executor) throws URLSignException {
+        String expiryValue = getExpiryValue(ttlInSeconds);
+        URI[] input = uris.toArray(new URI[0]);
+        URI[] signed = new URI[input.length];
+        int chunks = Math.min(input.length, Runtime.getRuntime().availableProcessors() * BATCH_CHUNKS_PER_CORE);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int from = (int) ((long) input.length * chunk / chunks);
+            int to = (int) ((long) input.length * (chunk + 1) / chunks);
+            futures[chunk] = CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    signed[i] = signUnchecked(input[i], expiryValue);
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedURLSignException) {
+                throw ((UncheckedURLSignException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+        return Arrays.asList(signed);
+    }
+
+    /*
+     * Lazily signs the URIs with one expiry, fixed when this method is called. Runs in parallel if the
+     * given stream is parallel; failures surface as UncheckedURLSignException.
+     */
+    public Stream<URI> signAll(Stream<URI> uris, int ttlInSeconds) {
+        String expiryValue = getExpiryValue(ttlInSeconds);
+        return uris.map(uri -> signUnchecked(uri, expiryValue));
+    }
+
+    private String getExpiryValue(int ttlInSeconds) {
+        long timestampExpiry = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + ttlInSeconds;
+        return ExpiryCodec.encode(timestampExpiry, expiryFormat);
+    }
+
+    private URI signUnchecked(URI uri, String expiryValue) {
+        try {
+            return sign(uri, expiryValue);
+        } catch (URLSignException e) {
+            throw new UncheckedURLSignException(e);
+        }
+    }
+
+    /*
+     * The signed URI is the URIBuilder output with the signature appended to its query, so the builder
+     * only runs once. A URIBuilder result can only contain '#' as the fragment separator.
+     */
+    private URI sign(URI uri, String expiryValue) throws URLSignException {
+        URLSignListener listener = this.listener;
+        long start = listener != null ? System.nanoTime() : 0;
         URIBuilder uriBuilder = new URIBuilder(uri);
+        if (algorithm != SignatureAlgorithms.RSA_ISO9796_2) {
+            uriBuilder.addParameter(URL_ALGORITHM, algorithm.getId());
+        }
+        if (keyId != null) {
+            uriBuilder.addParameter(URL_KEY_ID, keyId);
+        }
+        if (oneTimeUse) {
+            uriBuilder.addParameter(URL_NONCE, newNonce());
+        }
         uriBuilder.addParameter(URL_EXPIRE, expiryValue);
 
         try {
-            String uriToSign = uriBuilder.build().toString();
-            byte[] signatureBytes = getSignature(uriToSign.getBytes(StandardCharsets.UTF_8.name()));
-            String signatureValue = DatatypeConverter.printHexBinary(signatureBytes);
-            uriBuilder.addParameter(URL_SIGNATURE, signatureValue);
-            return uriBuilder.build();
+            String uriToSign = uriBuilder.toString();
+            long built = listener != null ? System.nanoTime() : 0;
+            String signatureValue = signatureEncoding.encode(getSignature(uriToSign));
+            long signed = listener != null ? System.nanoTime() : 0;
+            int fragmentStart = uriToSign.indexOf('#');
+            int queryEnd = fragmentStart >= 0 ? fragmentStart : uriToSign.length();
+            StringBuilder signedUri = new StringBuilder(uriToSign.length() + URL_SIGNATURE.length() + signatureValue.length() + 2);
+            signedUri.append(uriToSign, 0, queryEnd).append('&').append(URL_SIGNATURE).append('=').append(signatureValue);
+            signedUri.append(uriToSign, queryEnd, uriToSign.length());
+            URI result = new URI(signedUri.toString());
+            if (listener != null) {
+                listener.onTiming(Operation.SIGN_BUILD, built - start + System.nanoTime() - signed);
+                listener.onTiming(Operation.SIGN_CRYPTO, signed - built);
+            }
+            return result;
         } catch (URISyntaxException e) {
             throw new URLSignException("Error while building URI.", e);
-        } catch (UnsupportedEncodingException e) {
-            throw new URLSignException("Error while signing URI.", e);
         }
     }
 
+    private static String newNonce() {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        RANDOM.get().nextBytes(nonce);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(nonce);
+    }
+
     public byte[] getSignature(byte[] message) throws URLSignException {
+        return getSignature(ByteBuffer.wrap(message));
+    }
+
+    /*
+     * Signs the UTF-8 encoding of the concatenated segments without building the whole message first.
+     */
+    public byte[] getSignature(CharSequence... segments) throws URLSignException {
+        SignatureContext signature = engine.acquire();
         try {
             signature.initSign(key);
-            signature.update(message);
+            for (CharSequence segment : segments) {
+                Utf8Updater.update(signature, segment);
+            }
             return signature.sign();
         } catch (InvalidKeyException e) {
             throw new URLSignException("Invalid Key.", e);
         } catch (SignatureException e) {
             throw new URLSignException("Invalid Signature.", e);
+        } finally {
+            engine.release(signature);
         }
     }
+
+    public byte[] getSignature(ByteBuffer... segments) throws URLSignException {
+        SignatureContext signature = engine.acquire();
+        try {
+            signature.initSign(key);
+            for (ByteBuffer segment : segments) {
+                signature.update(segment);
+            }
+            return signature.sign();
+        } catch (InvalidKeyException e) {
+            throw new URLSignException("Invalid Key.", e);
+        } catch (SignatureException e) {
+            throw new URLSignException("Invalid Signature.", e);
+        } finally {
+            engine.release(signature);
+        }
+    }
+
+    @Override
+    public void close() {
+        engine.close();
+    }
 }
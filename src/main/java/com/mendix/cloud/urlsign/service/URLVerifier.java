@@ -1,33 +1,44 @@
 package com.mendix.cloud.urlsign.service;
 
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithm;
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithms;
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
 import com.mendix.cloud.urlsign.exception.URLSignException;
+import com.mendix.cloud.urlsign.metrics.Operation;
+import com.mendix.cloud.urlsign.metrics.URLSignListener;
+import com.mendix.cloud.urlsign.util.ExpiryCodec;
 import com.mendix.cloud.urlsign.util.KeyImporter;
-import com.mendix.cloud.urlsign.util.URLUtils;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URIBuilder;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import com.mendix.cloud.urlsign.util.SignatureEncoding;
+import com.mendix.cloud.urlsign.util.URLReconstructor;
 
 import javax.servlet.http.HttpServletRequest;
-import javax.xml.bind.DatatypeConverter;
+import java.io.Closeable;
 import java.io.File;
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URISyntaxException;
-import java.nio.charset.StandardCharsets;
-import java.security.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.TimeZone;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.SignatureException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
-public class URLVerifier {
+public class URLVerifier implements URLChecker, Closeable {
 
     public static final String URL_EXPIRE = "expire";
     public static final String URL_SIGNATURE = "signature";
+    public static final String URL_ALGORITHM = "algorithm";
+    public static final String URL_KEY_ID = "keyid";
+    public static final String URL_NONCE = "nonce";
 
-    private static PublicKey key;
-    private static Signature verify;
+    private final Key key;
+    private final SignatureAlgorithm algorithm;
+    private final SignatureEngine engine;
+    private final int signatureLength;
+    private final LongAdder[] rejects = new LongAdder[VerificationStage.values().length];
+    private VerificationCache verificationCache;
+    private NonceStore nonceStore;
+    private URLReconstructor urlReconstructor = URLReconstructor.DEFAULT;
+    private URLSignListener listener;
 
     public URLVerifier(byte[] publicKey) throws URLSignException {
         this(KeyImporter.importPublicKey(publicKey));
@@ -41,114 +52,349 @@ public class URLVerifier {
         this(KeyImporter.importPublicKey(publicKeyFile));
     }
 
-    private URLVerifier(PublicKey publicKey) throws URLSignException {
-        key = publicKey;
+    public URLVerifier(Key key) throws URLSignException {
+        this(key, EngineStrategy.DEFAULT);
+    }
 
-        try {
-            verify = Signature.getInstance("SHA1withRSA/ISO9796-2", BouncyCastleProvider.PROVIDER_NAME);
-        } catch (NoSuchAlgorithmException e) {
-            throw new URLSignException("No Such Algorithm.", e);
-        } catch (NoSuchProviderException e) {
-            throw new URLSignException("No Such Provider.", e);
+    public URLVerifier(Key key, EngineStrategy engineStrategy) throws URLSignException {
+        this(key, SignatureAlgorithms.forKey(key), engineStrategy);
+    }
+
+    /*
+     * The key is a PublicKey for the asymmetric algorithms and a SecretKey for HMAC. URLs must name the same
+     * algorithm in their algorithm parameter; URLs without one are only accepted by RSA_ISO9796_2 verifiers.
+     */
+    public URLVerifier(Key key, SignatureAlgorithm algorithm, EngineStrategy engineStrategy) throws URLSignException {
+        if (!algorithm.supports(key)) {
+            throw new URLSignException("Key does not match signature algorithm " + algorithm.getId() + ".");
+        }
+        this.key = key;
+        this.algorithm = algorithm;
+        engine = engineStrategy.newEngine(algorithm::newContext);
+        engine.release(engine.acquire());
+        signatureLength = algorithm.getSignatureLength(key);
+        for (int i = 0; i < rejects.length; i++) {
+            rejects[i] = new LongAdder();
         }
     }
 
+    /*
+     * Caches up to maxEntries URLs that passed verification until they expire, so repeated requests for the
+     * same URL skip the signature check; 0 disables the cache. Set it before the verifier is shared.
+     */
+    public void setVerificationCacheSize(int maxEntries) {
+        verificationCache = maxEntries > 0 ? new VerificationCache(maxEntries) : null;
+    }
+
+    /*
+     * The verification cache with its hit and miss counts, or null when it is disabled.
+     */
+    public VerificationCache getVerificationCache() {
+        return verificationCache;
+    }
+
+    /*
+     * Makes URLs single-use: they must carry the nonce of URLSigner.setOneTimeUse(), which is recorded in
+     * the store once the signature has been checked, and later uses are rejected as REPLAYED. The
+     * verification cache is bypassed; null disables this. Set it before the verifier is shared. BulkVerifier
+     * requires the nonce but never records it.
+     */
+    public void setNonceStore(NonceStore nonceStore) {
+        this.nonceStore = nonceStore;
+    }
+
+    /*
+     * Decides which forwarding headers are trusted when the URL of a servlet request is rebuilt.
+     */
+    public void setURLReconstructor(URLReconstructor urlReconstructor) {
+        this.urlReconstructor = urlReconstructor;
+    }
+
+    /*
+     * Reports the time spent per verification step and every result to the listener; null disables it.
+     */
+    public void setListener(URLSignListener listener) {
+        this.listener = listener;
+    }
+
     public boolean verify(HttpServletRequest request) throws URLSignException {
-        if(verifyGracefully(request)) {
-            return true;
-        } else {
-            throw new URLSignException("URL Verification failed for URL: " + URLUtils.getFullURL(request) + " PUBLIC_KEY:" + URLVerifier.key);
+        VerificationResult result = check(request);
+        if (!result.isValid()) {
+            throw new URLSignException("URL Verification failed for URL: " + request.getRequestURL() + " (" + result + ")");
         }
+        return true;
     }
 
     public boolean verify(URI uri) throws URLSignException {
-        if(verifyGracefully(uri)) {
-            return true;
-        } else {
-            throw new URLSignException("URL Verification failed for URL: " + uri.toString()+ " PUBLIC_KEY:" + URLVerifier.key.toString());
+        VerificationResult result = check(uri);
+        if (!result.isValid()) {
+            throw new URLSignException("URL Verification failed for URL: " + uri + " (" + result + ")");
         }
+        return true;
     }
 
+    /*
+     * Both overloads return false for URLs that are expired or carry a wrong signature, and throw for URLs
+     * that are malformed or lack the expire or signature parameter.
+     */
     public boolean verifyGracefully(HttpServletRequest request) throws URLSignException {
-        try {
-            URI uri = new URI(URLUtils.getFullURL(request));
-            return verifyGracefully(uri);
-        } catch (URISyntaxException e) {
-            throw new URLSignException("Error while parsing URI.", e);
-        }
+        return isValidOrThrow(check(request));
     }
 
     public boolean verifyGracefully(URI uri) throws URLSignException {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
-        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-        Date timestampNow = new Date();
+        return isValidOrThrow(check(uri));
+    }
+
+    private static boolean isValidOrThrow(VerificationResult result) throws URLSignException {
+        switch (result) {
+            case VALID:
+                return true;
+            case MALFORMED_URL:
+                throw new URLSignException("Error while parsing URI.");
+            case MISSING_PARAMETER:
+                throw new URLSignException("Missing '" + URL_EXPIRE + "' or '" + URL_SIGNATURE + "' query parameter in URL.");
+            case MALFORMED_EXPIRY:
+                throw new URLSignException("Error while parsing timestamp.");
+            default:
+                return false;
+        }
+    }
+
+    /*
+     * Exception-free verification. Expired and implausible links are rejected straight from the raw query
+     * string without allocating; only the remaining ones pay for rebuilding the full URL, canonicalization
+     * and the signature check.
+     */
+    @Override
+    public VerificationResult check(HttpServletRequest request) {
+        long timestampNow = System.currentTimeMillis();
+        VerificationResult result = precheck(request.getQueryString(), timestampNow);
+        if (!result.isValid()) {
+            return result;
+        }
+        return check(urlReconstructor.reconstruct(request), timestampNow);
+    }
+
+    @Override
+    public VerificationResult check(URI uri) {
+        return check(uri, System.currentTimeMillis());
+    }
+
+    /*
+     * Checks the URI with expiry evaluated against timestampNow (epoch milliseconds) instead of the clock.
+     */
+    public VerificationResult check(URI uri, long timestampNow) {
+        VerificationResult result = precheck(uri.getRawQuery(), timestampNow);
+        if (!result.isValid()) {
+            return result;
+        }
+        return check(uri.toString(), timestampNow);
+    }
 
-        URIBuilder uriBuilder = new URIBuilder(uri);
-        List<NameValuePair> queryParams = uriBuilder.getQueryParams();
-        NameValuePair expireNameValuePair = getNameValuePair(URL_EXPIRE, queryParams, uri);
+    /*
+     * Checks a URL without throwing, with expiry evaluated against timestampNow (epoch milliseconds).
+     */
+    VerificationResult check(String url, long timestampNow) {
+        return check(url, timestampNow, true);
+    }
+
+    /*
+     * Without consumeNonce, a valid one-time URL is not recorded in the nonce store and stays usable.
+     */
+    VerificationResult check(String url, long timestampNow, boolean consumeNonce) {
+        NonceStore nonceStore = this.nonceStore;
+        VerificationCache cache = nonceStore == null ? verificationCache : null;
+        if (cache != null && cache.contains(url, timestampNow)) {
+            return valid();
+        }
+
+        URLSignListener listener = this.listener;
+        long start = listener != null ? System.nanoTime() : 0;
+        CanonicalURL canonicalURL = URLCanonicalizer.canonicalize(url);
+        if (listener != null) {
+            listener.onTiming(Operation.VERIFY_CANONICALIZE, System.nanoTime() - start);
+        }
+        if (canonicalURL == null) {
+            return reject(VerificationResult.MALFORMED_URL);
+        }
+        String expire = canonicalURL.getExpire();
+        if (expire == null || (nonceStore != null && canonicalURL.getNonce() == null)) {
+            return reject(VerificationResult.MISSING_PARAMETER);
+        }
+        String algorithmId = canonicalURL.getAlgorithm();
+        if (algorithmId == null ? algorithm != SignatureAlgorithms.RSA_ISO9796_2 : !algorithmId.equals(algorithm.getId())) {
+            return reject(VerificationResult.UNEXPECTED_ALGORITHM);
+        }
+
+        long timestampExpiry = ExpiryCodec.decode(expire);
+        if (timestampExpiry == ExpiryCodec.INVALID) {
+            return reject(VerificationResult.MALFORMED_EXPIRY);
+        }
+        if (isTimestampExpired(timestampExpiry, timestampNow)) {
+            return reject(VerificationResult.EXPIRED);
+        }
 
+        String signature = canonicalURL.getSignature();
+        if (signature == null) {
+            return reject(VerificationResult.MISSING_PARAMETER);
+        }
+        if (!isPlausibleSignature(signature, 0, signature.length())) {
+            return reject(VerificationResult.MALFORMED_SIGNATURE);
+        }
+        start = listener != null ? System.nanoTime() : 0;
+        boolean verified;
         try {
-            Date timestampExpiry = dateFormat.parse(expireNameValuePair.getValue());
-            if (isTimestampExpired(timestampExpiry, timestampNow)) {
-                return false;
-            }
+            verified = getVerification(SignatureEncoding.decode(signature), canonicalURL.getSignedPart());
+        } catch (URLSignException e) {
+            // A signature the provider cannot even parse is as bad as one that does not match.
+            verified = false;
+        }
+        if (listener != null) {
+            listener.onTiming(Operation.VERIFY_CRYPTO, System.nanoTime() - start);
+        }
+        if (!verified) {
+            return reject(VerificationResult.BAD_SIGNATURE);
+        }
+        if (nonceStore != null && consumeNonce && !nonceStore.consume(canonicalURL.getNonce(), TimeUnit.SECONDS.toMillis(timestampExpiry))) {
+            return reject(VerificationResult.REPLAYED);
+        }
+        if (cache != null) {
+            cache.put(url, TimeUnit.SECONDS.toMillis(timestampExpiry));
+        }
+        return valid();
+    }
+
+    private VerificationResult precheck(String query, long timestampNow) {
+        URLSignListener listener = this.listener;
+        if (listener == null) {
+            return checkQuery(query, timestampNow);
+        }
+        long start = System.nanoTime();
+        VerificationResult result = checkQuery(query, timestampNow);
+        listener.onTiming(Operation.VERIFY_PRECHECK, System.nanoTime() - start);
+        return result;
+    }
+
+    private VerificationResult checkQuery(String query, long timestampNow) {
+        if (query == null) {
+            return reject(VerificationResult.MISSING_PARAMETER);
+        }
+        int expireStart = URLCanonicalizer.findValue(query, URL_EXPIRE);
+        if (expireStart < 0) {
+            return reject(VerificationResult.MISSING_PARAMETER);
+        }
+        if (nonceStore != null && URLCanonicalizer.findValue(query, URL_NONCE) < 0) {
+            return reject(VerificationResult.MISSING_PARAMETER);
+        }
+        if (!isExpectedAlgorithm(query)) {
+            return reject(VerificationResult.UNEXPECTED_ALGORITHM);
+        }
 
-            NameValuePair signatureNameValuePair = getNameValuePair(URL_SIGNATURE, queryParams, uri);
-            String uriToVerify = rebuildUriToVerify(uriBuilder, queryParams, signatureNameValuePair);
+        long timestampExpiry = ExpiryCodec.decode(query, expireStart, URLCanonicalizer.valueEnd(query, expireStart));
+        if (timestampExpiry == ExpiryCodec.INVALID) {
+            return reject(VerificationResult.MALFORMED_EXPIRY);
+        }
+        if (isTimestampExpired(timestampExpiry, timestampNow)) {
+            return reject(VerificationResult.EXPIRED);
+        }
 
-            return verifySignature(signatureNameValuePair, uriToVerify);
-        } catch(ParseException e) {
-            throw new URLSignException("Error while parsing timestamp.", e);
-        } catch (URISyntaxException e) {
-            throw new URLSignException("Error while parsing URI.", e);
+        int signatureStart = URLCanonicalizer.findValue(query, URL_SIGNATURE);
+        if (signatureStart < 0) {
+            return reject(VerificationResult.MISSING_PARAMETER);
+        }
+        if (!isPlausibleSignature(query, signatureStart, URLCanonicalizer.valueEnd(query, signatureStart))) {
+            return reject(VerificationResult.MALFORMED_SIGNATURE);
         }
+        return VerificationResult.VALID;
     }
 
-    private static NameValuePair getNameValuePair(String name, List<NameValuePair> queryParams, URI uri) throws URLSignException {
-        NameValuePair expireNameValuePair = extractQueryParam(name, queryParams);
-        if(expireNameValuePair == null) {
-            throw new URLSignException("Missing '" + name + "' query parameter in URL: " + uri.toString());
+    private boolean isExpectedAlgorithm(String query) {
+        int algorithmStart = URLCanonicalizer.findValue(query, URL_ALGORITHM);
+        if (algorithmStart < 0) {
+            return algorithm == SignatureAlgorithms.RSA_ISO9796_2;
         }
-        return expireNameValuePair;
+        String id = algorithm.getId();
+        return URLCanonicalizer.valueEnd(query, algorithmStart) - algorithmStart == id.length() && query.startsWith(id, algorithmStart);
     }
 
-    private static boolean isTimestampExpired(Date timestampExpiry, Date timestampNow) {
-        return timestampNow.after(timestampExpiry);
+    private boolean isPlausibleSignature(CharSequence value, int start, int end) {
+        return SignatureEncoding.isPlausible(value, start, end, signatureLength);
     }
 
-    private static String rebuildUriToVerify(URIBuilder uriBuilder, List<NameValuePair> queryParams, NameValuePair signatureNameValuePair) throws URISyntaxException {
-        queryParams.remove(signatureNameValuePair);
-        uriBuilder.setParameters(queryParams);
-        return uriBuilder.build().toString();
+    private VerificationResult reject(VerificationResult result) {
+        rejects[result.getStage().ordinal()].increment();
+        URLSignListener listener = this.listener;
+        if (listener != null) {
+            listener.onVerification(result);
+        }
+        return result;
     }
 
-    private boolean verifySignature(NameValuePair signatureNameValuePair, String uriToVerify) throws URLSignException {
-        try {
-            byte[] signature = DatatypeConverter.parseHexBinary(signatureNameValuePair.getValue());
-            return getVerification(uriToVerify.getBytes(StandardCharsets.UTF_8.name()), signature);
-        } catch (UnsupportedEncodingException e) {
-            throw new URLSignException("Error while decoding signature.", e);
+    private VerificationResult valid() {
+        URLSignListener listener = this.listener;
+        if (listener != null) {
+            listener.onVerification(VerificationResult.VALID);
         }
+        return VerificationResult.VALID;
+    }
+
+    public long getRejectCount(VerificationStage stage) {
+        return rejects[stage.ordinal()].sum();
+    }
+
+    private static boolean isTimestampExpired(long timestampExpiry, long timestampNow) {
+        return timestampNow > TimeUnit.SECONDS.toMillis(timestampExpiry);
     }
 
     public boolean getVerification(byte[] message, byte[] signature) throws URLSignException {
+        return getVerification(signature, ByteBuffer.wrap(message));
+    }
+
+    /*
+     * Verifies the signature over the UTF-8 encoding of the concatenated segments without building the
+     * whole message first.
+     */
+    public boolean getVerification(byte[] signature, CharSequence... segments) throws URLSignException {
+        SignatureContext verify = engine.acquire();
         try {
             verify.initVerify(key);
-            verify.update(message);
+            for (CharSequence segment : segments) {
+                Utf8Updater.update(verify, segment);
+            }
             return verify.verify(signature);
+        } catch (IllegalStateException e) {
+            // BC's ISO9796-2 verifier throws instead of returning false when the recovered trailer is garbage.
+            return false;
         } catch (InvalidKeyException e) {
             throw new URLSignException("Invalid Key.", e);
         } catch (SignatureException e) {
             throw new URLSignException("Invalid Signature.", e);
+        } finally {
+            engine.release(verify);
         }
     }
 
-    private static NameValuePair extractQueryParam(String name, List<NameValuePair> queryParams) {
-        for (NameValuePair nvp: queryParams) {
-            if(nvp.getName().equals(name)) {
-                return nvp;
+    public boolean getVerification(byte[] signature, ByteBuffer... segments) throws URLSignException {
+        SignatureContext verify = engine.acquire();
+        try {
+            verify.initVerify(key);
+            for (ByteBuffer segment : segments) {
+                verify.update(segment);
             }
+            return verify.verify(signature);
+        } catch (IllegalStateException e) {
+            return false;
+        } catch (InvalidKeyException e) {
+            throw new URLSignException("Invalid Key.", e);
+        } catch (SignatureException e) {
+            throw new URLSignException("Invalid Signature.", e);
+        } finally {
+            engine.release(verify);
         }
-        return null;
+    }
+
+    @Override
+    public void close() {
+        engine.close();
     }
 }
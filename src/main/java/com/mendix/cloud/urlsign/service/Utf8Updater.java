@@ -0,0 +1,57 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
+
+import java.security.SignatureException;
+
+/*
+ * Feeds characters into a SignatureContext as UTF-8 through a small per-thread buffer, so a message never
+ * has to exist as one byte[]. Produces the same bytes as String.getBytes(UTF_8), including '?' for unpaired
+ * surrogates; a surrogate pair must not be split across two calls.
+ */
+final class Utf8Updater {
+
+    private static final int BUFFER_SIZE = 512;
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    private Utf8Updater() {
+    }
+
+    static void update(SignatureContext signature, CharSequence chars) throws SignatureException {
+        byte[] buffer = BUFFERS.get();
+        int length = 0;
+        int end = chars.length();
+        for (int i = 0; i < end; i++) {
+            if (length > BUFFER_SIZE - 4) {
+                signature.update(buffer, 0, length);
+                length = 0;
+            }
+
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xc0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                buffer[length++] = (byte) (0xf0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                buffer[length++] = (byte) '?';
+            } else {
+                buffer[length++] = (byte) (0xe0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buffer[length++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        signature.update(buffer, 0, length);
+    }
+}
@@ -0,0 +1,128 @@
+package com.mendix.cloud.urlsign.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded cache of URLs that one URLVerifier has found valid, mapped to their expiry, so that repeated
+ * requests for the same signed URL skip the signature check. Only exact URL strings that passed the full
+ * verification are stored, and an entry only counts as a hit while the URL itself has not expired.
+ *
+ * The entries are spread over lock stripes, each an LRU map holding its share of maxEntries. URLs longer
+ * than MAX_URL_LENGTH are never cached, which bounds the memory use to roughly maxEntries times that
+ * length.
+ */
+public final class VerificationCache {
+
+    public static final int MAX_URL_LENGTH = 4096;
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    VerificationCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        }
+        this.maxEntries = maxEntries;
+        int stripeSize = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    boolean contains(String url, long timestampNow) {
+        Stripe stripe = stripeFor(url);
+        synchronized (stripe) {
+            Long expiry = stripe.get(url);
+            if (expiry != null) {
+                if (timestampNow <= expiry) {
+                    hits.increment();
+                    return true;
+                }
+                stripe.remove(url);
+            }
+        }
+        misses.increment();
+        return false;
+    }
+
+    void put(String url, long timestampExpiry) {
+        if (url.length() > MAX_URL_LENGTH) {
+            return;
+        }
+        Stripe stripe = stripeFor(url);
+        synchronized (stripe) {
+            stripe.put(url, timestampExpiry);
+        }
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private Stripe stripeFor(String url) {
+        int hash = url.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private final class Stripe extends LinkedHashMap<String, Long> {
+
+        private final int maxSize;
+
+        Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            if (size() > maxSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.mendix.cloud.urlsign.service;
+
+/*
+ * Outcome of checking one URL. Every failure belongs to the VerificationStage that detects it.
+ */
+public enum VerificationResult {
+
+    VALID(null),
+
+    /*
+     * The URL cannot be parsed.
+     */
+    MALFORMED_URL(VerificationStage.PARAMETERS),
+
+    /*
+     * The expire or signature query parameter is missing, or the nonce for a verifier with a NonceStore.
+     */
+    MISSING_PARAMETER(VerificationStage.PARAMETERS),
+
+    /*
+     * The algorithm query parameter names a different algorithm than the verifier's, or is missing for a
+     * non-RSA verifier.
+     */
+    UNEXPECTED_ALGORITHM(VerificationStage.PARAMETERS),
+
+    /*
+     * The keyid query parameter names no key of the KeyRing, or is missing and the ring has no default key.
+     */
+    UNKNOWN_KEY(VerificationStage.PARAMETERS),
+
+    MALFORMED_EXPIRY(VerificationStage.EXPIRY),
+
+    EXPIRED(VerificationStage.EXPIRY),
+
+    MALFORMED_SIGNATURE(VerificationStage.SIGNATURE_SHAPE),
+
+    BAD_SIGNATURE(VerificationStage.SIGNATURE),
+
+    /*
+     * The URL is valid but was already used, or the NonceStore refused its nonce.
+     */
+    REPLAYED(VerificationStage.REPLAY);
+
+    private final VerificationStage stage;
+
+    VerificationResult(VerificationStage stage) {
+        this.stage = stage;
+    }
+
+    public boolean isValid() {
+        return this == VALID;
+    }
+
+    /*
+     * The stage that rejected the URL, or null if it is valid.
+     */
+    public VerificationStage getStage() {
+        return stage;
+    }
+}
@@ -0,0 +1,33 @@
+package com.mendix.cloud.urlsign.service;
+
+/*
+ * The stages of URL verification, cheapest first. A URL rejected at one stage never reaches the next one,
+ * and URLVerifier counts the rejections per stage.
+ */
+public enum VerificationStage {
+
+    /*
+     * A query parameter is missing or names an unexpected algorithm or unknown key.
+     */
+    PARAMETERS,
+
+    /*
+     * The expire value cannot be parsed or lies in the past.
+     */
+    EXPIRY,
+
+    /*
+     * The signature value has the wrong length or characters for its encoding.
+     */
+    SIGNATURE_SHAPE,
+
+    /*
+     * The signature does not match the URL.
+     */
+    SIGNATURE,
+
+    /*
+     * The nonce of a one-time-use URL was already used.
+     */
+    REPLAY
+}
@@ -0,0 +1,129 @@
+package com.mendix.cloud.urlsign.servlet;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+import com.mendix.cloud.urlsign.service.AsyncVerifier;
+import com.mendix.cloud.urlsign.service.URLChecker;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.service.VerificationResult;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+
+/*
+ * Lets only requests with a valid signed URL through. With Servlet 3.1 async support the signature check
+ * runs on the AsyncVerifier's crypto threads instead of the container thread: invalid requests are answered
+ * with 403 from there, valid ones are dispatched back into the container, where this filter (if it is also
+ * mapped for the ASYNC dispatcher type) passes them down the chain. When the crypto pool is saturated the
+ * request is answered with 503 at once. Without async support the check runs inline.
+ *
+ * The filter can be created with a verifier, or by the container with the init parameters publicKeyFile,
+ * threads and queueCapacity.
+ */
+public class URLVerificationFilter implements Filter {
+
+    public static final String RESULT_ATTRIBUTE = URLVerificationFilter.class.getName() + ".result";
+
+    private URLChecker checker;
+    private AsyncVerifier asyncVerifier;
+    private URLVerifier ownedVerifier;
+
+    public URLVerificationFilter() {
+    }
+
+    public URLVerificationFilter(URLChecker checker, AsyncVerifier asyncVerifier) {
+        this.checker = checker;
+        this.asyncVerifier = asyncVerifier;
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        if (checker != null) {
+            return;
+        }
+        String publicKeyFile = filterConfig.getInitParameter("publicKeyFile");
+        if (publicKeyFile == null) {
+            throw new ServletException("Missing init parameter publicKeyFile.");
+        }
+        try {
+            ownedVerifier = new URLVerifier(new File(publicKeyFile));
+        } catch (URLSignException e) {
+            throw new ServletException(e);
+        }
+        checker = ownedVerifier;
+        asyncVerifier = new AsyncVerifier(ownedVerifier,
+                getIntParameter(filterConfig, "threads", AsyncVerifier.DEFAULT_THREADS),
+                getIntParameter(filterConfig, "queueCapacity", AsyncVerifier.DEFAULT_QUEUE_CAPACITY));
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+
+        Object verified = request.getAttribute(RESULT_ATTRIBUTE);
+        if (verified == VerificationResult.VALID) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!request.isAsyncSupported() || asyncVerifier == null) {
+            VerificationResult result = checker.check(request);
+            request.setAttribute(RESULT_ATTRIBUTE, result);
+            if (result.isValid()) {
+                chain.doFilter(request, response);
+            } else {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            }
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncVerifier.check(request).whenComplete((result, error) -> {
+            try {
+                if (error != null) {
+                    response.setHeader("Retry-After", "1");
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    asyncContext.complete();
+                } else if (result.isValid()) {
+                    request.setAttribute(RESULT_ATTRIBUTE, result);
+                    asyncContext.dispatch();
+                } else {
+                    request.setAttribute(RESULT_ATTRIBUTE, result);
+                    response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                    asyncContext.complete();
+                }
+            } catch (IOException | RuntimeException e) {
+                asyncContext.complete();
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        if (ownedVerifier != null) {
+            asyncVerifier.close();
+            ownedVerifier.close();
+        }
+    }
+
+    private static int getIntParameter(FilterConfig filterConfig, String name, int defaultValue) throws ServletException {
+        String value = filterConfig.getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ServletException("Invalid init parameter " + name + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mendix.cloud.urlsign.util;
+
+/*
+ * Converts the expire query parameter from and to epoch seconds without SimpleDateFormat, TimeZone or Date.
+ * The format is recognized by length: exactly 14 digits is an ExpiryFormat.TIMESTAMP, 1 to 13 digits are
+ * ExpiryFormat.EPOCH_SECONDS. Like the lenient SimpleDateFormat it replaces, out-of-range fields in a
+ * timestamp roll over (month 13 is January of the next year).
+ */
+public final class ExpiryCodec {
+
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final int TIMESTAMP_LENGTH = 14;
+    private static final int MAX_EPOCH_SECONDS_LENGTH = 13;
+    private static final long SECONDS_PER_DAY = 86400;
+
+    private ExpiryCodec() {
+    }
+
+    public static long decode(CharSequence value) {
+        return decode(value, 0, value.length());
+    }
+
+    /*
+     * Returns the epoch seconds encoded in value[start, end), or INVALID.
+     */
+    public static long decode(CharSequence value, int start, int end) {
+        int length = end - start;
+        if (length < 1 || length > TIMESTAMP_LENGTH) {
+            return INVALID;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+        }
+        if (length <= MAX_EPOCH_SECONDS_LENGTH) {
+            return digits(value, start, end);
+        }
+
+        long year = digits(value, start, start + 4);
+        long month = digits(value, start + 4, start + 6) - 1;
+        year += Math.floorDiv(month, 12);
+        month = Math.floorMod(month, 12) + 1;
+        long day = digits(value, start + 6, start + 8);
+        long hour = digits(value, start + 8, start + 10);
+        long minute = digits(value, start + 10, start + 12);
+        long second = digits(value, start + 12, start + 14);
+        return (daysFromCivil(year, month, 1) + day - 1) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+    }
+
+    public static String encode(long epochSeconds, ExpiryFormat format) {
+        return encode(epochSeconds, format, new StringBuilder(TIMESTAMP_LENGTH)).toString();
+    }
+
+    public static StringBuilder encode(long epochSeconds, ExpiryFormat format, StringBuilder target) {
+        if (format == ExpiryFormat.EPOCH_SECONDS) {
+            return target.append(epochSeconds);
+        }
+
+        long days = Math.floorDiv(epochSeconds, SECONDS_PER_DAY);
+        long secondOfDay = Math.floorMod(epochSeconds, SECONDS_PER_DAY);
+
+        // civil_from_days, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        appendDigits(target, year, 4);
+        appendDigits(target, month, 2);
+        appendDigits(target, day, 2);
+        appendDigits(target, secondOfDay / 3600, 2);
+        appendDigits(target, secondOfDay / 60 % 60, 2);
+        appendDigits(target, secondOfDay % 60, 2);
+        return target;
+    }
+
+    // days_from_civil, see http://howardhinnant.github.io/date_algorithms.html
+    private static long daysFromCivil(long year, long month, long day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static long digits(CharSequence value, int start, int end) {
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            result = result * 10 + (value.charAt(i) - '0');
+        }
+        return result;
+    }
+
+    private static void appendDigits(StringBuilder target, long value, int width) {
+        long divisor = 1;
+        for (int i = 1; i < width; i++) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            target.append((char) ('0' + value / divisor % 10));
+        }
+    }
+}
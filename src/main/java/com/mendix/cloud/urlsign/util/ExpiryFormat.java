@@ -0,0 +1,14 @@
+package com.mendix.cloud.urlsign.util;
+
+public enum ExpiryFormat {
+
+    /*
+     * 14 digits, yyyyMMddHHmmss in UTC. Understood by every verifier.
+     */
+    TIMESTAMP,
+
+    /*
+     * Seconds since the epoch, at most 13 digits. Shorter, but only understood by verifiers that use ExpiryCodec.
+     */
+    EPOCH_SECONDS
+}
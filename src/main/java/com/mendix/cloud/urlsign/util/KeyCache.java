@@ -0,0 +1,147 @@
+package com.mendix.cloud.urlsign.util;
+
+import com.mendix.cloud.urlsign.exception.URLSignException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Bounded cache from key material (the PEM or ssh-rsa text) to a ready-to-use signer or verifier, so each
+ * distinct key is imported only once. Hits are lock-free: they only read the map and stamp the entry with
+ * the approximate time of its last use. Loading happens outside any lock; when two threads load the same
+ * key concurrently the first one wins and the other instance is closed. Misses that overflow the cache
+ * evict the least recently used entries, found by a scan that costs far less than the key import before it.
+ *
+ * Evicted entries are closed while other threads may still hold them. That is safe for URLSigner and
+ * URLVerifier: close() only drops their cached Signature instances, so a closed one keeps signing and
+ * verifying correctly and merely creates a new instance per call until it is let go.
+ */
+public class KeyCache<V extends Closeable> {
+
+    public interface Loader<V> {
+        V load(String keyMaterial) throws URLSignException;
+    }
+
+    private final ConcurrentMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile int maxSize;
+
+    public KeyCache(int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    public V get(String keyMaterial, Loader<V> loader) throws URLSignException {
+        Entry<V> cached = entries.get(keyMaterial);
+        if (cached != null) {
+            cached.touch();
+            hits.increment();
+            return cached.value;
+        }
+
+        misses.increment();
+        Entry<V> loaded = new Entry<>(loader.load(keyMaterial));
+        cached = entries.putIfAbsent(keyMaterial, loaded);
+        if (cached != null) {
+            closeQuietly(loaded.value);
+            cached.touch();
+            return cached.value;
+        }
+        trimToSize();
+        return loaded.value;
+    }
+
+    public void setMaxSize(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1.");
+        }
+        this.maxSize = maxSize;
+        trimToSize();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        for (Map.Entry<String, Entry<V>> entry : entries.entrySet()) {
+            if (entries.remove(entry.getKey(), entry.getValue())) {
+                closeQuietly(entry.getValue().value);
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private void trimToSize() {
+        synchronized (evictionLock) {
+            while (entries.size() > maxSize) {
+                Map.Entry<String, Entry<V>> eldest = null;
+                for (Map.Entry<String, Entry<V>> entry : entries.entrySet()) {
+                    if (eldest == null || entry.getValue().lastUsed - eldest.getValue().lastUsed < 0) {
+                        eldest = entry;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                if (entries.remove(eldest.getKey(), eldest.getValue())) {
+                    evictions.increment();
+                    closeQuietly(eldest.getValue().value);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Nothing left to release.
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private static final long TOUCH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final V value;
+        private volatile long lastUsed = System.nanoTime();
+
+        private Entry(V value) {
+            this.value = value;
+        }
+
+        /*
+         * Hot entries are shared by many threads; the stamp is only rewritten once it is a millisecond old,
+         * so hits do not keep invalidating each other's cache lines.
+         */
+        private void touch() {
+            long now = System.nanoTime();
+            if (now - lastUsed > TOUCH_INTERVAL_NANOS) {
+                lastUsed = now;
+            }
+        }
+    }
+}
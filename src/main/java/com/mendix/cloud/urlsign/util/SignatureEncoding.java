@@ -0,0 +1,200 @@
+package com.mendix.cloud.urlsign.util;
+
+import java.util.Arrays;
+
+/*
+ * Text encodings for the signature query parameter. HEX is the original format; BASE64URL is a third
+ * shorter and is marked with a "b64." prefix, which can never start a hex value, so verifiers accept both
+ * without being told which one to expect. Both only use characters that URL encoding leaves alone.
+ */
+public enum SignatureEncoding {
+
+    HEX {
+        @Override
+        public String encode(byte[] signature) {
+            char[] chars = new char[signature.length * 2];
+            for (int i = 0; i < signature.length; i++) {
+                chars[2 * i] = HEX_DIGITS[(signature[i] >> 4) & 0xf];
+                chars[2 * i + 1] = HEX_DIGITS[signature[i] & 0xf];
+            }
+            return new String(chars);
+        }
+
+        @Override
+        int encodedLength(int signatureLength) {
+            return signatureLength * 2;
+        }
+    },
+
+    BASE64URL {
+        @Override
+        public String encode(byte[] signature) {
+            char[] chars = new char[BASE64_PREFIX.length() + encodedLength(signature.length)];
+            BASE64_PREFIX.getChars(0, BASE64_PREFIX.length(), chars, 0);
+            int position = BASE64_PREFIX.length();
+            int i = 0;
+            for (; i + 2 < signature.length; i += 3) {
+                int bits = (signature[i] & 0xff) << 16 | (signature[i + 1] & 0xff) << 8 | (signature[i + 2] & 0xff);
+                chars[position++] = BASE64_DIGITS[bits >>> 18];
+                chars[position++] = BASE64_DIGITS[(bits >>> 12) & 0x3f];
+                chars[position++] = BASE64_DIGITS[(bits >>> 6) & 0x3f];
+                chars[position++] = BASE64_DIGITS[bits & 0x3f];
+            }
+            int remaining = signature.length - i;
+            if (remaining > 0) {
+                int bits = (signature[i] & 0xff) << 16 | (remaining == 2 ? (signature[i + 1] & 0xff) << 8 : 0);
+                chars[position++] = BASE64_DIGITS[bits >>> 18];
+                chars[position++] = BASE64_DIGITS[(bits >>> 12) & 0x3f];
+                if (remaining == 2) {
+                    chars[position] = BASE64_DIGITS[(bits >>> 6) & 0x3f];
+                }
+            }
+            return new String(chars);
+        }
+
+        @Override
+        int encodedLength(int signatureLength) {
+            return (signatureLength * 4 + 2) / 3;
+        }
+    };
+
+    static final String BASE64_PREFIX = "b64.";
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final char[] BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] HEX_VALUES = new byte[128];
+    private static final byte[] BASE64_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            HEX_VALUES[HEX_DIGITS[i]] = (byte) i;
+            HEX_VALUES[Character.toLowerCase(HEX_DIGITS[i])] = (byte) i;
+        }
+        for (int i = 0; i < BASE64_DIGITS.length; i++) {
+            BASE64_VALUES[BASE64_DIGITS[i]] = (byte) i;
+        }
+    }
+
+    public abstract String encode(byte[] signature);
+
+    abstract int encodedLength(int signatureLength);
+
+    public static SignatureEncoding of(CharSequence value, int start, int end) {
+        return startsWithBase64Prefix(value, start, end) ? BASE64URL : HEX;
+    }
+
+    public static byte[] decode(CharSequence value) {
+        return decode(value, 0, value.length());
+    }
+
+    /*
+     * Decodes value[start, end) in whichever encoding it uses, or returns null if it is malformed.
+     */
+    public static byte[] decode(CharSequence value, int start, int end) {
+        if (startsWithBase64Prefix(value, start, end)) {
+            return decodeBase64(value, start + BASE64_PREFIX.length(), end);
+        }
+        return decodeHex(value, start, end);
+    }
+
+    /*
+     * Checks the characters and, when signatureLength is not -1, the length of value[start, end) without
+     * decoding it.
+     */
+    public static boolean isPlausible(CharSequence value, int start, int end, int signatureLength) {
+        SignatureEncoding encoding = of(value, start, end);
+        byte[] values = HEX_VALUES;
+        if (encoding == BASE64URL) {
+            start += BASE64_PREFIX.length();
+            values = BASE64_VALUES;
+        }
+        int length = end - start;
+        if (length == 0 || (signatureLength >= 0 ? length != encoding.encodedLength(signatureLength) : !isValidLength(encoding, length))) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= 128 || values[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidLength(SignatureEncoding encoding, int length) {
+        return encoding == HEX ? length % 2 == 0 : length % 4 != 1;
+    }
+
+    private static boolean startsWithBase64Prefix(CharSequence value, int start, int end) {
+        if (end - start < BASE64_PREFIX.length()) {
+            return false;
+        }
+        for (int i = 0; i < BASE64_PREFIX.length(); i++) {
+            if (value.charAt(start + i) != BASE64_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] decodeHex(CharSequence value, int start, int end) {
+        if ((end - start) % 2 != 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(end - start) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = digit(HEX_VALUES, value.charAt(start + 2 * i));
+            int low = digit(HEX_VALUES, value.charAt(start + 2 * i + 1));
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            bytes[i] = (byte) (high << 4 | low);
+        }
+        return bytes;
+    }
+
+    private static byte[] decodeBase64(CharSequence value, int start, int end) {
+        int length = end - start;
+        if (length % 4 == 1) {
+            return null;
+        }
+        byte[] bytes = new byte[length * 3 / 4];
+        int position = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int digit = digit(BASE64_VALUES, value.charAt(i));
+            if (digit < 0) {
+                return null;
+            }
+            bits = bits << 6 | digit;
+            if (++count == 4) {
+                bytes[position++] = (byte) (bits >> 16);
+                bytes[position++] = (byte) (bits >> 8);
+                bytes[position++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        // The unused low bits of a partial group must be zero, so that every signature has only one encoding.
+        if (count == 3) {
+            if ((bits & 0x3) != 0) {
+                return null;
+            }
+            bytes[position++] = (byte) (bits >> 10);
+            bytes[position] = (byte) (bits >> 2);
+        } else if (count == 2) {
+            if ((bits & 0xF) != 0) {
+                return null;
+            }
+            bytes[position] = (byte) (bits >> 4);
+        }
+        return bytes;
+    }
+
+    private static int digit(byte[] values, char c) {
+        return c < 128 ? values[c] : -1;
+    }
+}
@@ -0,0 +1,160 @@
+package com.mendix.cloud.urlsign.util;
+
+import javax.servlet.http.HttpServletRequest;
+
+/*
+ * Rebuilds the URL a client requested from a servlet request: scheme, host, port, the raw request URI and
+ * the raw query string, in a per-thread buffer and without any decoding; the canonicalizer decodes the
+ * query parameters it needs itself. Behind a proxy, the scheme and host the client used can be taken from
+ * forwarding headers, but only from the ones this reconstructor is told to trust. They are consulted in
+ * the given order and the first one present wins. Like earlier releases, a forwarded scheme only replaces
+ * http: a request that arrived over https is never downgraded by a header.
+ */
+public class URLReconstructor {
+
+    public enum ForwardedHeader {
+
+        /*
+         * X-Forwarded-Scheme: the scheme.
+         */
+        X_FORWARDED_SCHEME,
+
+        /*
+         * X-Forwarded-Proto: the scheme; the first one of a comma-separated list.
+         */
+        X_FORWARDED_PROTO,
+
+        /*
+         * X-Forwarded-Host: host and optional port; the first one of a comma-separated list.
+         */
+        X_FORWARDED_HOST,
+
+        /*
+         * Forwarded (RFC 7239): the proto and host parameters of the first element.
+         */
+        FORWARDED
+    }
+
+    /*
+     * Trusts X-Forwarded-Scheme and X-Forwarded-Proto, in that order, like earlier releases did.
+     */
+    public static final URLReconstructor DEFAULT = new URLReconstructor(ForwardedHeader.X_FORWARDED_SCHEME, ForwardedHeader.X_FORWARDED_PROTO);
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final ForwardedHeader[] trustedHeaders;
+
+    public URLReconstructor(ForwardedHeader... trustedHeaders) {
+        this.trustedHeaders = trustedHeaders.clone();
+    }
+
+    public String reconstruct(HttpServletRequest request) {
+        String scheme = null;
+        String host = null;
+        for (ForwardedHeader header : trustedHeaders) {
+            switch (header) {
+                case X_FORWARDED_SCHEME:
+                    scheme = scheme != null ? scheme : firstToken(request.getHeader("X-Forwarded-Scheme"));
+                    break;
+                case X_FORWARDED_PROTO:
+                    scheme = scheme != null ? scheme : firstToken(request.getHeader("X-Forwarded-Proto"));
+                    break;
+                case X_FORWARDED_HOST:
+                    host = host != null ? host : firstToken(request.getHeader("X-Forwarded-Host"));
+                    break;
+                case FORWARDED:
+                    String forwarded = request.getHeader("Forwarded");
+                    if (forwarded != null) {
+                        scheme = scheme != null ? scheme : forwardedParameter(forwarded, "proto");
+                        host = host != null ? host : forwardedParameter(forwarded, "host");
+                    }
+                    break;
+            }
+        }
+
+        StringBuilder url = BUFFER.get();
+        url.setLength(0);
+        String requestScheme = request.getScheme();
+        url.append(scheme != null && "http".equalsIgnoreCase(requestScheme) ? scheme : requestScheme).append("://");
+        if (host != null) {
+            url.append(host);
+        } else {
+            url.append(request.getServerName());
+            int port = request.getServerPort();
+            if (port > 0 && !isDefaultPort(requestScheme, port)) {
+                url.append(':').append(port);
+            }
+        }
+        url.append(request.getRequestURI());
+        String query = request.getQueryString();
+        if (query != null) {
+            url.append('?').append(query);
+        }
+        return url.toString();
+    }
+
+    private static boolean isDefaultPort(String scheme, int port) {
+        return (port == 80 && "http".equalsIgnoreCase(scheme)) || (port == 443 && "https".equalsIgnoreCase(scheme));
+    }
+
+    private static String firstToken(String value) {
+        if (value == null) {
+            return null;
+        }
+        int end = value.indexOf(',');
+        String token = (end < 0 ? value : value.substring(0, end)).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    /*
+     * The value of a parameter in the first element of a Forwarded header, without quotes, or null.
+     */
+    static String forwardedParameter(String forwarded, String name) {
+        int length = forwarded.length();
+        int position = 0;
+        while (position < length) {
+            while (position < length && (forwarded.charAt(position) == ' ' || forwarded.charAt(position) == ';')) {
+                position++;
+            }
+            int nameStart = position;
+            while (position < length && forwarded.charAt(position) != '=' && forwarded.charAt(position) != ';' && forwarded.charAt(position) != ',') {
+                position++;
+            }
+            if (position >= length || forwarded.charAt(position) != '=') {
+                if (position < length && forwarded.charAt(position) == ',') {
+                    return null;
+                }
+                continue;
+            }
+            boolean matches = forwarded.substring(nameStart, position).trim().equalsIgnoreCase(name);
+            position++;
+
+            int valueStart = position;
+            int valueEnd;
+            if (position < length && forwarded.charAt(position) == '"') {
+                valueStart = ++position;
+                while (position < length && forwarded.charAt(position) != '"') {
+                    position += forwarded.charAt(position) == '\\' ? 2 : 1;
+                }
+                valueEnd = Math.min(position, length);
+                position++;
+            } else {
+                while (position < length && forwarded.charAt(position) != ';' && forwarded.charAt(position) != ',') {
+                    position++;
+                }
+                valueEnd = position;
+            }
+            if (matches) {
+                String value = forwarded.substring(valueStart, valueEnd).trim();
+                return value.isEmpty() ? null : value;
+            }
+            while (position < length && forwarded.charAt(position) == ' ') {
+                position++;
+            }
+            if (position < length && forwarded.charAt(position) == ',') {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -15,6 +15,10 @@ public class URLUtils {
     private URLUtils() {
     }
 
+    /*
+     * Returns the fully decoded URL, which is not what was signed. URLVerifier uses URLReconstructor instead.
+     */
+    @Deprecated
     public static String getFullURL(HttpServletRequest request) throws URLSignException {
         StringBuffer requestURL = request.getRequestURL();
         String queryString = request.getQueryString();
@@ -43,8 +47,8 @@ public class URLUtils {
         if (forwardedScheme != null)
             scheme = forwardedScheme;
 
-        if (scheme != null) {
-            return url.replaceFirst("http://", scheme + "://");
+        if (scheme != null && url.startsWith("http://")) {
+            return scheme + url.substring("http".length());
         }
         return url;
     }
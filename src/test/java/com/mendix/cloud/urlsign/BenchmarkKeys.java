@@ -0,0 +1,58 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.util.KeyImporter;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/*
+ * Keys and URLs shared by the JMH benchmarks.
+ */
+final class BenchmarkKeys {
+
+    private BenchmarkKeys() {
+    }
+
+    static URLSigner signer(String algorithm) throws Exception {
+        if ("hs256".equals(algorithm)) {
+            return new URLSigner(KeyImporter.importSecretKey(new File(resource("/id_hmac"))));
+        }
+        return new URLSigner(new File(resource("/id_" + keyName(algorithm))));
+    }
+
+    static URLVerifier verifier(String algorithm) throws Exception {
+        if ("hs256".equals(algorithm)) {
+            return new URLVerifier(KeyImporter.importSecretKey(new File(resource("/id_hmac"))));
+        }
+        return new URLVerifier(new File(resource("/id_" + keyName(algorithm) + ".pub")));
+    }
+
+    static URI uri(String query) throws URISyntaxException {
+        if ("short".equals(query)) {
+            return new URI("https://www.mendix.com/download?file=report.pdf");
+        }
+        StringBuilder uri = new StringBuilder("https://cdn.mendix.com/tenant/42/files/2015/06/archive.zip?");
+        for (int i = 0; i < 40; i++) {
+            uri.append("param").append(i).append("=value-").append(i).append("-abcdefghijklmnopqrstuvwxyz&");
+        }
+        return new URI(uri.append("last=1").toString());
+    }
+
+    static String resource(String name) {
+        return BenchmarkKeys.class.getResource(name).getFile();
+    }
+
+    private static String keyName(String algorithm) {
+        switch (algorithm) {
+            case "es256":
+                return "ecdsa";
+            case "ed25519":
+                return "ed25519";
+            default:
+                return "rsa";
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.service.EngineStrategy;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.util.KeyImporter;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50;
+
+    private String privateKeyFileName;
+    private String publicKeyFileName;
+
+    @Before
+    public void setUp() {
+        privateKeyFileName = getClass().getResource("/id_rsa").getFile();
+        publicKeyFileName = getClass().getResource("/id_rsa.pub").getFile();
+    }
+
+    @Test
+    public void concurrentSigning() throws Exception {
+        final URLSigner urlSigner = new URLSigner(new File(privateKeyFileName));
+        URLVerifier urlVerifier = new URLVerifier(new File(publicKeyFileName));
+
+        List<URI> signedUris = runConcurrently(new Callable<URI>() {
+            private int counter;
+
+            @Override
+            public URI call() throws Exception {
+                return urlSigner.sign(new URI("https://www.mendix.com/" + nextId()), 10);
+            }
+
+            private synchronized int nextId() {
+                return counter++;
+            }
+        });
+
+        for (URI signedUri : signedUris) {
+            assertTrue(urlVerifier.verifyGracefully(signedUri));
+        }
+    }
+
+    @Test
+    public void batchSigning() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(privateKeyFileName));
+        URLVerifier urlVerifier = new URLVerifier(new File(publicKeyFileName));
+
+        List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < THREADS * ITERATIONS; i++) {
+            uris.add(new URI("https://www.mendix.com/" + i + "?a=b#fragment"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<URI> signedUris = urlSigner.signAll(uris, 10, executor);
+            assertEquals(uris.size(), signedUris.size());
+            for (int i = 0; i < uris.size(); i++) {
+                assertTrue(signedUris.get(i).toString().startsWith("https://www.mendix.com/" + i + "?a=b&expire="));
+                assertEquals("fragment", signedUris.get(i).getFragment());
+                assertTrue(urlVerifier.verifyGracefully(signedUris.get(i)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<URI> streamed = urlSigner.signAll(uris.parallelStream(), 10).collect(Collectors.toList());
+        for (int i = 0; i < uris.size(); i++) {
+            assertTrue(streamed.get(i).toString().startsWith("https://www.mendix.com/" + i + "?"));
+            assertTrue(urlVerifier.verifyGracefully(streamed.get(i)));
+        }
+    }
+
+    @Test
+    public void signersWithDifferentKeys() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(1024);
+        KeyPair keyPair = keyPairGenerator.generateKeyPair();
+
+        URLSigner fileSigner = new URLSigner(new File(privateKeyFileName));
+        URLSigner generatedSigner = new URLSigner(keyPair.getPrivate());
+        URLVerifier fileVerifier = new URLVerifier(new File(publicKeyFileName));
+        URLVerifier generatedVerifier = new URLVerifier(keyPair.getPublic());
+
+        byte[] message = "lorem impsum sit dolor jeff ament".getBytes();
+        byte[] fileSignature = fileSigner.getSignature(message);
+        byte[] generatedSignature = generatedSigner.getSignature(message);
+
+        assertTrue(fileVerifier.getVerification(message, fileSignature));
+        assertTrue(generatedVerifier.getVerification(message, generatedSignature));
+        assertFalse(fileVerifier.getVerification(message, generatedSignature));
+    }
+
+    @Test
+    public void concurrentVerificationPooled() throws Exception {
+        concurrentVerification(EngineStrategy.pooled(2));
+    }
+
+    @Test
+    public void concurrentVerificationThreadLocal() throws Exception {
+        concurrentVerification(EngineStrategy.threadLocal());
+    }
+
+    private void concurrentVerification(EngineStrategy engineStrategy) throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(privateKeyFileName));
+        final URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        final URI tamperedUri = new URI(signedUri.toString().replace("a=b", "a=c"));
+
+        try (final URLVerifier urlVerifier = new URLVerifier(KeyImporter.importPublicKey(new File(publicKeyFileName)), engineStrategy)) {
+            List<Boolean> results = runConcurrently(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return urlVerifier.verifyGracefully(signedUri) && !urlVerifier.verifyGracefully(tamperedUri);
+                }
+            });
+
+            for (Boolean result : results) {
+                assertTrue(result);
+            }
+        }
+    }
+
+    private static <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS * ITERATIONS; i++) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.algorithm.CryptoBackend;
+import com.mendix.cloud.urlsign.util.KeyImporter;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyImportBenchmark {
+
+    @Param({"rsa", "ed25519", "ecdsa"})
+    public String keyType;
+
+    @Param({"JDK", "BOUNCY_CASTLE"})
+    public String backend;
+
+    private String privateKey;
+    private String publicKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        CryptoBackend.setDefault(CryptoBackend.valueOf(backend));
+        privateKey = FileUtils.readFileToString(new File(BenchmarkKeys.resource("/id_" + keyType)));
+        publicKey = FileUtils.readFileToString(new File(BenchmarkKeys.resource("/id_" + keyType + ".pub")));
+    }
+
+    @Benchmark
+    public PrivateKey importPrivateKey() throws Exception {
+        return KeyImporter.importPrivateKey(privateKey);
+    }
+
+    @Benchmark
+    public PublicKey importPublicKey() throws Exception {
+        return KeyImporter.importPublicKey(publicKey);
+    }
+}
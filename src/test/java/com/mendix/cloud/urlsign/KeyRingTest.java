@@ -0,0 +1,79 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.service.KeyRing;
+import com.mendix.cloud.urlsign.service.KeyRingVerifier;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.service.VerificationResult;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class KeyRingTest {
+
+    @Test
+    public void verifiesWithTheNamedKey() throws Exception {
+        URLSigner rsaSigner = new URLSigner(resource("id_rsa"));
+        rsaSigner.setKeyId("rsa-1");
+        URLSigner ed25519Signer = new URLSigner(resource("id_ed25519"));
+        ed25519Signer.setKeyId("ed-1");
+        URLSigner legacySigner = new URLSigner(resource("id_rsa"));
+
+        URI rsaUri = rsaSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        URI ed25519Uri = ed25519Signer.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        URI legacyUri = legacySigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+
+        KeyRing keyRing = new KeyRing();
+        KeyRingVerifier verifier = new KeyRingVerifier(keyRing);
+        assertEquals(VerificationResult.UNKNOWN_KEY, verifier.check(rsaUri));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Map<String, File> keys = new HashMap<>();
+            keys.put("rsa-1", resource("id_rsa.pub"));
+            keys.put("ed-1", resource("id_ed25519.pub"));
+            keyRing.loadAsync(keys, executor).join();
+
+            keys.put("broken", resource("id_hmac"));
+            try {
+                keyRing.loadAsync(keys, executor).join();
+                fail();
+            } catch (CompletionException e) {
+                assertEquals(2, keyRing.getKeyIds().size());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(VerificationResult.VALID, verifier.check(rsaUri));
+        assertEquals(VerificationResult.VALID, verifier.check(ed25519Uri));
+        assertEquals(VerificationResult.VALID, verifier.check(TestRequests.request(ed25519Uri)));
+        assertEquals(VerificationResult.BAD_SIGNATURE, verifier.check(new URI(rsaUri.toString().replace("a=b", "a=c"))));
+        assertEquals(VerificationResult.UNKNOWN_KEY, verifier.check(legacyUri));
+        assertEquals(VerificationResult.UNKNOWN_KEY, verifier.check(new URI(rsaUri.toString().replace("keyid=rsa-1", "keyid=rsa-2"))));
+
+        keyRing.setDefaultKeyId("rsa-1");
+        assertEquals(VerificationResult.VALID, verifier.check(legacyUri));
+
+        URLVerifier rotated = new URLVerifier(resource("id_rsa.pub"));
+        keyRing.put("rsa-1", rotated);
+        assertSame(rotated, keyRing.get("rsa-1"));
+        keyRing.remove("ed-1");
+        assertEquals(VerificationResult.UNKNOWN_KEY, verifier.check(ed25519Uri));
+        assertEquals(4, verifier.getUnknownKeyCount());
+    }
+
+    private File resource(String name) {
+        return new File(getClass().getResource("/" + name).getFile());
+    }
+}
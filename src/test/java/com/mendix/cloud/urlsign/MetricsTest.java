@@ -0,0 +1,72 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.metrics.MicrometerListener;
+import com.mendix.cloud.urlsign.metrics.Operation;
+import com.mendix.cloud.urlsign.metrics.StatisticsListener;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.service.VerificationResult;
+import com.mendix.cloud.urlsign.util.KeyImporter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @Test
+    public void statisticsPerOperationAndResult() throws Exception {
+        StatisticsListener statistics = new StatisticsListener();
+        KeyImporter.setListener(statistics);
+        URLSigner urlSigner;
+        URLVerifier urlVerifier;
+        try {
+            urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+            urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+        } finally {
+            KeyImporter.setListener(null);
+        }
+        assertEquals(2, statistics.getCount(Operation.KEY_IMPORT));
+
+        urlSigner.setListener(statistics);
+        urlVerifier.setListener(statistics);
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        urlVerifier.check(signedUri);
+        urlVerifier.check(new URI(signedUri.toString().replace("a=b", "a=c")));
+        urlVerifier.check(urlSigner.sign(new URI("https://www.mendix.com/"), -10));
+
+        assertEquals(2, statistics.getCount(Operation.SIGN_CRYPTO));
+        assertEquals(2, statistics.getCount(Operation.SIGN_BUILD));
+        assertEquals(3, statistics.getCount(Operation.VERIFY_PRECHECK));
+        assertEquals(2, statistics.getCount(Operation.VERIFY_CANONICALIZE));
+        assertEquals(2, statistics.getCount(Operation.VERIFY_CRYPTO));
+        assertEquals(1, statistics.getCount(VerificationResult.VALID));
+        assertEquals(1, statistics.getCount(VerificationResult.BAD_SIGNATURE));
+        assertEquals(1, statistics.getCount(VerificationResult.EXPIRED));
+
+        long median = statistics.getPercentileNanos(Operation.SIGN_CRYPTO, 50);
+        assertTrue(median > 0);
+        assertTrue(statistics.getPercentileNanos(Operation.SIGN_CRYPTO, 100) >= median);
+        statistics.reset();
+        assertEquals(0, statistics.getPercentileNanos(Operation.SIGN_CRYPTO, 50));
+    }
+
+    @Test
+    public void micrometerAdapter() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+        MicrometerListener listener = new MicrometerListener(registry);
+        urlSigner.setListener(listener);
+        urlVerifier.setListener(listener);
+
+        urlVerifier.check(urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10));
+
+        assertEquals(1, registry.get("urlsign.operation").tag("operation", "verify_crypto").timer().count());
+        assertEquals(1, registry.get("urlsign.verification").tag("result", "valid").counter().count(), 0);
+    }
+}
@@ -0,0 +1,64 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.algorithm.CryptoBackend;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"rsa", "ed25519", "es256", "hs256"})
+    public String algorithm;
+
+    @Param({"JDK", "BOUNCY_CASTLE"})
+    public String backend;
+
+    @Param({"short", "long"})
+    public String query;
+
+    private URLSigner urlSigner;
+    private URI uri;
+    private List<URI> batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        CryptoBackend.setDefault(CryptoBackend.valueOf(backend));
+        urlSigner = BenchmarkKeys.signer(algorithm);
+        uri = BenchmarkKeys.uri(query);
+        batch = Collections.nCopies(BATCH_SIZE, uri);
+    }
+
+    @TearDown
+    public void tearDown() {
+        urlSigner.close();
+    }
+
+    @Benchmark
+    public URI sign() throws Exception {
+        return urlSigner.sign(uri, 60);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public URI signConcurrently() throws Exception {
+        return urlSigner.sign(uri, 60);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<URI> signAll() throws Exception {
+        return urlSigner.signAll(batch, 60);
+    }
+}
@@ -0,0 +1,103 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.algorithm.CryptoBackend;
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithms;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.util.KeyImporter;
+import org.junit.Test;
+
+import javax.crypto.SecretKey;
+import java.io.File;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SignatureAlgorithmsTest {
+
+    @Test
+    public void ed25519() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(resource("/id_ed25519")));
+        URLVerifier urlVerifier = new URLVerifier(new File(resource("/id_ed25519.pub")));
+
+        assertEquals(SignatureAlgorithms.ED25519, urlSigner.getAlgorithm());
+        assertSignedAndVerified(urlSigner, urlVerifier, 64);
+    }
+
+    @Test
+    public void ecdsaP256() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(resource("/id_ecdsa")));
+        URLVerifier urlVerifier = new URLVerifier(new File(resource("/id_ecdsa.pub")));
+
+        assertEquals(SignatureAlgorithms.ECDSA_P256, urlSigner.getAlgorithm());
+        assertSignedAndVerified(urlSigner, urlVerifier, 64);
+    }
+
+    @Test
+    public void hmacSha256() throws Exception {
+        SecretKey secretKey = KeyImporter.importSecretKey(new File(resource("/id_hmac")));
+        URLSigner urlSigner = new URLSigner(secretKey);
+        URLVerifier urlVerifier = new URLVerifier(secretKey);
+
+        assertEquals(SignatureAlgorithms.HMAC_SHA256, urlSigner.getAlgorithm());
+        assertSignedAndVerified(urlSigner, urlVerifier, 32);
+    }
+
+    @Test
+    public void algorithmMismatchIsRejected() throws Exception {
+        URLSigner ed25519Signer = new URLSigner(new File(resource("/id_ed25519")));
+        URLSigner rsaSigner = new URLSigner(new File(resource("/id_rsa")));
+        URLVerifier ed25519Verifier = new URLVerifier(new File(resource("/id_ed25519.pub")));
+        URLVerifier rsaVerifier = new URLVerifier(new File(resource("/id_rsa.pub")));
+
+        URI ed25519Uri = ed25519Signer.sign(new URI("https://www.mendix.com/"), 10);
+        URI rsaUri = rsaSigner.sign(new URI("https://www.mendix.com/"), 10);
+
+        assertFalse(rsaVerifier.verifyGracefully(ed25519Uri));
+        assertFalse(ed25519Verifier.verifyGracefully(rsaUri));
+        assertFalse(ed25519Verifier.verifyGracefully(new URI(ed25519Uri.toString().replace("algorithm=ed25519", "algorithm=rsa"))));
+    }
+
+    @Test
+    public void backendsAreInterchangeable() throws Exception {
+        assertNotEquals("BC", CryptoBackend.JDK.getKeyFactory("RSA").getProvider().getName());
+        assertEquals("BC", CryptoBackend.BOUNCY_CASTLE.getKeyFactory("RSA").getProvider().getName());
+
+        for (String key : new String[]{"/id_rsa", "/id_ed25519", "/id_ecdsa"}) {
+            for (CryptoBackend signingBackend : CryptoBackend.values()) {
+                for (CryptoBackend verifyingBackend : CryptoBackend.values()) {
+                    CryptoBackend defaultBackend = CryptoBackend.getDefault();
+                    try {
+                        CryptoBackend.setDefault(signingBackend);
+                        URLSigner urlSigner = new URLSigner(new File(resource(key)));
+                        CryptoBackend.setDefault(verifyingBackend);
+                        URLVerifier urlVerifier = new URLVerifier(new File(resource(key + ".pub")));
+                        for (int i = 0; i < 10; i++) {
+                            assertTrue(urlVerifier.verify(urlSigner.sign(new URI("https://www.mendix.com/?i=" + i), 10)));
+                        }
+                    } finally {
+                        CryptoBackend.setDefault(defaultBackend);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertSignedAndVerified(URLSigner urlSigner, URLVerifier urlVerifier, int signatureLength) throws Exception {
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        String query = signedUri.getRawQuery();
+
+        assertTrue(query.contains(URLSigner.URL_ALGORITHM + "=" + urlSigner.getAlgorithm().getId()));
+        assertEquals(signatureLength * 2, query.length() - query.indexOf(URLSigner.URL_SIGNATURE + "=") - URLSigner.URL_SIGNATURE.length() - 1);
+        assertTrue(urlVerifier.verify(signedUri));
+        assertTrue(urlVerifier.verify(TestRequests.request(signedUri)));
+        assertFalse(urlVerifier.verifyGracefully(new URI(signedUri.toString().replace("a=b", "a=c"))));
+    }
+
+    private static String resource(String name) {
+        return SignatureAlgorithmsTest.class.getResource(name).getFile();
+    }
+}
@@ -0,0 +1,50 @@
+package com.mendix.cloud.urlsign;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Minimal HttpServletRequest for tests: only the URL parts, query string and headers are available.
+ */
+public final class TestRequests {
+
+    private TestRequests() {
+    }
+
+    public static HttpServletRequest request(URI uri) {
+        return request(uri, new HashMap<String, String>());
+    }
+
+    public static HttpServletRequest request(final URI uri, final Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(TestRequests.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch (method.getName()) {
+                    case "getRequestURL":
+                        String url = uri.toString();
+                        int queryStart = url.indexOf('?');
+                        return new StringBuffer(queryStart < 0 ? url : url.substring(0, queryStart));
+                    case "getScheme":
+                        return uri.getScheme();
+                    case "getServerName":
+                        return uri.getHost();
+                    case "getServerPort":
+                        return uri.getPort() >= 0 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+                    case "getRequestURI":
+                        return uri.getRawPath();
+                    case "getQueryString":
+                        return uri.getRawQuery();
+                    case "getHeader":
+                        return headers.get(args[0]);
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }
+        });
+    }
+}
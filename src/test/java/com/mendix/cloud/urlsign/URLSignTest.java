@@ -0,0 +1,69 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.util.KeyCache;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class URLSignTest {
+
+    private String privateKeyContents;
+    private String publicKeyContents;
+
+    @Before
+    public void setUp() throws Exception {
+        privateKeyContents = FileUtils.readFileToString(new File(getClass().getResource("/id_rsa").getFile()));
+        publicKeyContents = FileUtils.readFileToString(new File(getClass().getResource("/id_rsa.pub").getFile()));
+    }
+
+    @Test
+    public void signerIsImportedOnce() throws Exception {
+        KeyCache<URLSigner> cache = URLSign.getSignerCache();
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+
+        URLSign.sign(privateKeyContents, new URI("https://www.mendix.com"), 10);
+        URLSign.sign(privateKeyContents, new URI("https://www.mendix.com"), 10);
+
+        assertEquals(hits + misses + 2, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getHitCount() > hits);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() throws Exception {
+        KeyCache<URLVerifier> cache = new KeyCache<>(1);
+        URLVerifier first = cache.get(publicKeyContents, URLVerifier::new);
+        assertSame(first, cache.get(publicKeyContents, URLVerifier::new));
+
+        cache.get(publicKeyContents + "\n", URLVerifier::new);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void evictedEntriesKeepWorking() throws Exception {
+        KeyCache<URLSigner> signers = new KeyCache<>(1);
+        KeyCache<URLVerifier> verifiers = new KeyCache<>(1);
+        URLSigner urlSigner = signers.get(privateKeyContents, URLSigner::new);
+        URLVerifier urlVerifier = verifiers.get(publicKeyContents, URLVerifier::new);
+        signers.get(privateKeyContents + "\n", URLSigner::new);
+        verifiers.get(publicKeyContents + "\n", URLVerifier::new);
+        assertEquals(1, signers.getEvictionCount());
+        assertEquals(1, verifiers.getEvictionCount());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(urlVerifier.verify(urlSigner.sign(new URI("https://www.mendix.com/?i=" + i), 10)));
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.service.AsyncVerifier;
+import com.mendix.cloud.urlsign.service.URLChecker;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.service.VerificationResult;
+import com.mendix.cloud.urlsign.servlet.URLVerificationFilter;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class URLVerificationFilterTest {
+
+    @Test
+    public void asyncFilterDispatchesValidAndRejectsInvalidRequests() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+
+        try (AsyncVerifier asyncVerifier = new AsyncVerifier(urlVerifier, 2, 16)) {
+            URLVerificationFilter filter = new URLVerificationFilter(urlVerifier, asyncVerifier);
+            AtomicInteger passed = new AtomicInteger();
+            FilterChain chain = (request, response) -> passed.incrementAndGet();
+
+            AsyncRequest valid = new AsyncRequest(signedUri);
+            filter.doFilter(valid, response(valid), chain);
+            assertTrue(valid.done.await(5, TimeUnit.SECONDS));
+            assertTrue(valid.dispatched);
+            assertEquals(0, passed.get());
+            filter.doFilter(valid, response(valid), chain);
+            assertEquals(1, passed.get());
+
+            AsyncRequest tampered = new AsyncRequest(new URI(signedUri.toString().replace("a=b", "a=c")));
+            filter.doFilter(tampered, response(tampered), chain);
+            assertTrue(tampered.done.await(5, TimeUnit.SECONDS));
+            assertEquals(HttpServletResponse.SC_FORBIDDEN, tampered.status);
+            assertEquals(VerificationResult.BAD_SIGNATURE, tampered.getAttribute(URLVerificationFilter.RESULT_ATTRIBUTE));
+            assertEquals(1, passed.get());
+        }
+    }
+
+    @Test
+    public void saturatedPoolRejectsImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        URLChecker blockingChecker = new URLChecker() {
+            @Override
+            public VerificationResult check(URI uri) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return VerificationResult.VALID;
+            }
+
+            @Override
+            public VerificationResult check(HttpServletRequest request) {
+                return check((URI) null);
+            }
+        };
+
+        try (AsyncVerifier asyncVerifier = new AsyncVerifier(blockingChecker, 1, 1)) {
+            URI uri = new URI("https://www.mendix.com/");
+            CompletableFuture<VerificationResult> running = asyncVerifier.check(uri);
+            CompletableFuture<VerificationResult> queued = asyncVerifier.check(uri);
+            CompletableFuture<VerificationResult> rejected = asyncVerifier.check(uri);
+            try {
+                rejected.get();
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+            assertEquals(1, asyncVerifier.getRejectedCount());
+
+            release.countDown();
+            assertEquals(VerificationResult.VALID, running.get(5, TimeUnit.SECONDS));
+            assertEquals(VerificationResult.VALID, queued.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static HttpServletResponse response(AsyncRequest request) {
+        return (HttpServletResponse) Proxy.newProxyInstance(URLVerificationFilterTest.class.getClassLoader(), new Class<?>[]{HttpServletResponse.class}, (proxy, method, args) -> {
+            if (method.getName().equals("sendError")) {
+                request.status = (Integer) args[0];
+            }
+            return null;
+        });
+    }
+
+    private static final class AsyncRequest extends HttpServletRequestWrapper {
+
+        private final Map<String, Object> attributes = new HashMap<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean dispatched;
+        private volatile int status;
+
+        AsyncRequest(URI uri) {
+            super(TestRequests.request(uri));
+        }
+
+        @Override
+        public boolean isAsyncSupported() {
+            return true;
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            attributes.put(name, value);
+        }
+
+        @Override
+        public AsyncContext startAsync() {
+            return (AsyncContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{AsyncContext.class}, (proxy, method, args) -> {
+                if (method.getName().equals("dispatch")) {
+                    dispatched = true;
+                    done.countDown();
+                } else if (method.getName().equals("complete")) {
+                    done.countDown();
+                }
+                return null;
+            });
+        }
+    }
+}
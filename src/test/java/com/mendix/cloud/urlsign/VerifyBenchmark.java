@@ -0,0 +1,78 @@
+package com.mendix.cloud.urlsign;
+
+import com.mendix.cloud.urlsign.algorithm.CryptoBackend;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import com.mendix.cloud.urlsign.service.VerificationResult;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifyBenchmark {
+
+    @Param({"rsa", "ed25519", "es256", "hs256"})
+    public String algorithm;
+
+    @Param({"JDK", "BOUNCY_CASTLE"})
+    public String backend;
+
+    @Param({"short", "long"})
+    public String query;
+
+    private URLVerifier urlVerifier;
+    private URI signedUri;
+    private HttpServletRequest signedRequest;
+    private HttpServletRequest expiredRequest;
+    private URI unsignedUri;
+
+    @Setup
+    public void setUp() throws Exception {
+        CryptoBackend.setDefault(CryptoBackend.valueOf(backend));
+        urlVerifier = BenchmarkKeys.verifier(algorithm);
+        try (URLSigner urlSigner = BenchmarkKeys.signer(algorithm)) {
+            signedUri = urlSigner.sign(BenchmarkKeys.uri(query), 3600);
+            signedRequest = TestRequests.request(signedUri);
+            expiredRequest = TestRequests.request(urlSigner.sign(BenchmarkKeys.uri(query), -60));
+            unsignedUri = BenchmarkKeys.uri(query);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        urlVerifier.close();
+    }
+
+    @Benchmark
+    public boolean verifyUri() throws Exception {
+        return urlVerifier.verifyGracefully(signedUri);
+    }
+
+    @Benchmark
+    public boolean verifyRequest() throws Exception {
+        return urlVerifier.verifyGracefully(signedRequest);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean verifyRequestConcurrently() throws Exception {
+        return urlVerifier.verifyGracefully(signedRequest);
+    }
+
+    @Benchmark
+    public boolean rejectExpiredRequest() throws Exception {
+        return urlVerifier.verifyGracefully(expiredRequest);
+    }
+
+    @Benchmark
+    public VerificationResult checkUnsignedUri() {
+        return urlVerifier.check(unsignedUri);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mendix.cloud.urlsign.cli;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class URLSignToolTest {
+
+    @Test
+    public void signAndVerifyInOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append("https://www.mendix.com/file/").append(i).append("?a=b\n");
+            if (i % 10 == 0) {
+                input.append('\n');
+            }
+        }
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        String signed = run(input.toString(), err, URLSignTool.EXIT_OK, "sign", "--key", resource("/id_ecdsa"), "--threads", "4", "--batch-size", "7",
+                "--encoding", "base64url", "--backend", "jdk");
+        String[] signedLines = signed.split("\n");
+        assertEquals(100, signedLines.length);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(signedLines[i].startsWith("https://www.mendix.com/file/" + i + "?a=b&algorithm=es256&expire="));
+        }
+        assertTrue(err.toString("UTF-8").startsWith("Signed 100 URLs in "));
+
+        String tampered = signed.replace("/file/42?", "/file/43?");
+        String verified = run(tampered, err, URLSignTool.EXIT_FAILED, "verify", "--key", resource("/id_ecdsa.pub"), "--threads", "3", "--batch-size", "5");
+        String[] verifiedLines = verified.split("\n");
+        assertEquals(100, verifiedLines.length);
+        for (int i = 0; i < 100; i++) {
+            assertEquals((i == 42 ? "BAD_SIGNATURE " : "VALID ") + (i == 42 ? signedLines[i].replace("/file/42?", "/file/43?") : signedLines[i]), verifiedLines[i]);
+        }
+        assertTrue(err.toString("UTF-8").contains("Verified 100 URLs in "));
+        assertTrue(err.toString("UTF-8").contains("VALID: 99, BAD_SIGNATURE: 1"));
+    }
+
+    @Test
+    public void exitCodes() throws Exception {
+        String signed = run("https://www.mendix.com/\n", new ByteArrayOutputStream(), URLSignTool.EXIT_OK, "sign", "--key", resource("/id_hmac"), "--secret");
+        assertEquals(URLSignTool.EXIT_OK, exitCode(signed, "verify", "--key", resource("/id_hmac"), "--secret"));
+        assertEquals(URLSignTool.EXIT_FAILED, exitCode(signed, "verify", "--key", resource("/id_rsa.pub")));
+        assertEquals(URLSignTool.EXIT_FAILED, exitCode("not a url\n", "sign", "--key", resource("/id_rsa")));
+        assertEquals(URLSignTool.EXIT_USAGE, exitCode("", "sign"));
+        assertEquals(URLSignTool.EXIT_USAGE, exitCode("", "verify", "--key", resource("/id_rsa.pub"), "--threads", "0"));
+        assertEquals(URLSignTool.EXIT_USAGE, exitCode("https://www.mendix.com/\n", "sign", "--key", resource("/id_rsa"), "--ttl", "-5"));
+        assertEquals(URLSignTool.EXIT_USAGE, exitCode("https://www.mendix.com/\n", "sign", "--key", resource("/id_rsa"), "--ttl", "0"));
+        assertEquals(URLSignTool.EXIT_USAGE, exitCode("", "encrypt", "--key", resource("/id_rsa.pub")));
+    }
+
+    private static String run(String input, ByteArrayOutputStream err, int exitCode, String... args) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(exitCode, URLSignTool.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out,
+                new PrintStream(err, true, "UTF-8")));
+        return out.toString("UTF-8");
+    }
+
+    private static int exitCode(String input, String... args) throws Exception {
+        return URLSignTool.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream(),
+                new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+    }
+
+    private static String resource(String name) {
+        return URLSignToolTest.class.getResource(name).getFile();
+    }
+}
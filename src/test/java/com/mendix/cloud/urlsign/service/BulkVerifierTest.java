@@ -0,0 +1,112 @@
+package com.mendix.cloud.urlsign.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringReader;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BulkVerifierTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void verdictsInInputOrder() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+        String signed = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 60).toString();
+
+        List<String> lines = new ArrayList<>();
+        List<VerificationResult> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lines.add(signed);
+            expected.add(VerificationResult.VALID);
+            lines.add(signed.replace("a=b", "a=c"));
+            expected.add(VerificationResult.BAD_SIGNATURE);
+            lines.add("https://www.mendix.com/?a=b");
+            expected.add(VerificationResult.MISSING_PARAMETER);
+            lines.add("https://www.mendix.com/?a=b c");
+            expected.add(VerificationResult.MALFORMED_URL);
+            lines.add(signed.replaceFirst("expire=", "expire=x"));
+            expected.add(VerificationResult.MALFORMED_EXPIRY);
+            lines.add(signed.replaceFirst("signature=..", "signature="));
+            expected.add(VerificationResult.MALFORMED_SIGNATURE);
+            lines.add("");
+        }
+        String input = String.join("\r\n", lines);
+        long now = System.currentTimeMillis();
+
+        BulkVerifier bulkVerifier = new BulkVerifier(urlVerifier, ForkJoinPool.commonPool(), 7);
+        List<String> urls = new ArrayList<>();
+        List<VerificationResult> results = new ArrayList<>();
+        Map<VerificationResult, Long> summary = bulkVerifier.verify(new StringReader(input), now, (url, result) -> {
+            urls.add(url);
+            results.add(result);
+        });
+        assertEquals(expected, results);
+        assertEquals(lines.subList(0, 6), urls.subList(0, 6));
+        assertEquals(Long.valueOf(20), summary.get(VerificationResult.VALID));
+        assertEquals(Long.valueOf(0), summary.get(VerificationResult.EXPIRED));
+
+        Path file = folder.newFile().toPath();
+        Files.write(file, input.getBytes(StandardCharsets.UTF_8));
+        results.clear();
+        summary = bulkVerifier.verify(file, now + TimeUnit.HOURS.toMillis(1), (url, result) -> results.add(result));
+        assertEquals(Long.valueOf(0), summary.get(VerificationResult.VALID));
+        assertEquals(Long.valueOf(60), summary.get(VerificationResult.EXPIRED));
+        assertEquals(VerificationResult.EXPIRED, results.get(0));
+        assertEquals(VerificationResult.MISSING_PARAMETER, results.get(2));
+    }
+
+    @Test
+    public void leavesNoncesUnconsumed() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        urlSigner.setOneTimeUse(true);
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+        InMemoryNonceStore nonceStore = new InMemoryNonceStore(100);
+        urlVerifier.setNonceStore(nonceStore);
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 60);
+        String input = signedUri + "\n" + signedUri + "\nhttps://www.mendix.com/?a=b&expire=1&signature=00\n";
+
+        List<VerificationResult> results = new ArrayList<>();
+        new BulkVerifier(urlVerifier).verify(new StringReader(input), System.currentTimeMillis(), (url, result) -> results.add(result));
+        assertEquals(Arrays.asList(VerificationResult.VALID, VerificationResult.VALID, VerificationResult.MISSING_PARAMETER), results);
+        assertEquals(0, nonceStore.size());
+        assertEquals(VerificationResult.VALID, urlVerifier.check(signedUri));
+        assertEquals(VerificationResult.REPLAYED, urlVerifier.check(signedUri));
+    }
+
+    @Test
+    public void mappedLinesAcrossRegions() throws Exception {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "first\nsecond line\n\n\u00e9\u20ac\nlast".getBytes(StandardCharsets.UTF_8));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BulkVerifier.MappedLineSource source = new BulkVerifier.MappedLineSource(channel, 12);
+            List<String> lines = new ArrayList<>();
+            String line;
+            while ((line = source.next()) != null) {
+                lines.add(line);
+            }
+            assertEquals(Arrays.asList("first", "second line", "", "\u00e9\u20ac", "last"), lines);
+            assertNull(source.next());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.mendix.cloud.urlsign.service;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryNonceStoreTest {
+
+    @Test
+    public void oneTimeUseUrls() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        urlSigner.setOneTimeUse(true);
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+        urlVerifier.setVerificationCacheSize(100);
+        InMemoryNonceStore nonceStore = new InMemoryNonceStore(100);
+        urlVerifier.setNonceStore(nonceStore);
+
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        URI otherUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        assertNotEquals(signedUri, otherUri);
+
+        assertEquals(VerificationResult.BAD_SIGNATURE, urlVerifier.check(new URI(signedUri.toString().replace("a=b", "a=c"))));
+        assertEquals(VerificationResult.VALID, urlVerifier.check(signedUri));
+        assertEquals(VerificationResult.REPLAYED, urlVerifier.check(signedUri));
+        assertEquals(VerificationResult.REPLAYED, urlVerifier.check(signedUri.toString(), System.currentTimeMillis()));
+        assertEquals(VerificationResult.VALID, urlVerifier.check(otherUri));
+        assertEquals(VerificationResult.MISSING_PARAMETER, urlVerifier.check(new URI(signedUri.toString().replaceFirst("nonce=", "once="))));
+
+        assertEquals(2, nonceStore.size());
+        assertEquals(2, nonceStore.getReplayCount());
+        assertEquals(2, urlVerifier.getRejectCount(VerificationStage.REPLAY));
+        assertEquals(0, urlVerifier.getVerificationCache().getHitCount());
+    }
+
+    @Test
+    public void expiredNoncesAreForgotten() {
+        InMemoryNonceStore nonceStore = new InMemoryNonceStore(100);
+        assertTrue(nonceStore.consume("x", 1000, 0));
+        assertFalse(nonceStore.consume("x", 1000, 1000));
+        assertTrue(nonceStore.consume("x", 5000, 1001));
+        assertEquals(1, nonceStore.size());
+        assertEquals(1, nonceStore.getReplayCount());
+    }
+
+    @Test
+    public void unexpiredNoncesAreNeverEvicted() {
+        InMemoryNonceStore nonceStore = new InMemoryNonceStore(32);
+        int accepted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (nonceStore.consume("nonce-" + i, 1000, 0)) {
+                accepted++;
+            }
+        }
+        assertTrue(accepted <= 32);
+        assertEquals(accepted, nonceStore.size());
+        assertEquals(1000 - accepted, nonceStore.getOverflowCount());
+        assertFalse(nonceStore.consume("nonce-0", 1000, 500));
+
+        for (int i = 0; i < 1000; i++) {
+            nonceStore.consume("nonce-" + i, 5000, 2000);
+        }
+        assertEquals(accepted, nonceStore.size());
+    }
+}
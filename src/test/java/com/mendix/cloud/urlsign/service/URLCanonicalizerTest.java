@@ -0,0 +1,68 @@
+package com.mendix.cloud.urlsign.service;
+
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URIBuilder;
+import org.junit.Test;
+
+import java.net.URI;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class URLCanonicalizerTest {
+
+    private static final String[] URLS = {
+            "https://www.mendix.com?expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/?expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/a/b.html?x=1&y=&z&expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/?signature=ABCDEF&expire=20150611150101",
+            "https://www.mendix.com/?x=1&signature=ABCDEF&expire=20150611150101&signature=123456",
+            "https://www.mendix.com/?x=1;y=2&expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/?x=a+b&y=a%20b&z=%2f%7E~!&expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/?x=a=b&&=c&expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/?x=%C3%A9%E2%82%AC&y=%FF&expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/?x=\u00e9&expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/?sign%61ture=ABCDEF&expire=20150611150101",
+            "https://www.mendix.com/?expire=20150611150101&signature=ABCDEF#fragment",
+            "https://user@www.mendix.com:8080//a//b?expire=20150611150101&signature=ABCDEF",
+            "https://www.mendix.com/%7Epath?expire=20150611150101&signature=AB+CD",
+            "https://www.mendix.com/?signature=ABCDEF",
+    };
+
+    @Test
+    public void matchesURIBuilderRoundTrip() throws Exception {
+        for (String url : URLS) {
+            CanonicalURL canonicalURL = URLCanonicalizer.canonicalize(url);
+            assertEquals(url, rebuildWithURIBuilder(new URI(url)), canonicalURL.getSignedPart().toString());
+        }
+    }
+
+    @Test
+    public void extractsParameters() {
+        CanonicalURL canonicalURL = URLCanonicalizer.canonicalize("https://www.mendix.com/?expire=20150611150101&x=1&signature=AB+CD");
+        assertEquals("20150611150101", canonicalURL.getExpire());
+        assertEquals("AB CD", canonicalURL.getSignature());
+        assertEquals("https://www.mendix.com/?expire=20150611150101&x=1", canonicalURL.getSignedPart().toString());
+    }
+
+    @Test
+    public void rejectsInvalidURIs() {
+        assertNull(URLCanonicalizer.canonicalize("https://www.mendix.com/?x=a b"));
+        assertNull(URLCanonicalizer.canonicalize("https://www.mendix.com/?x=%G1"));
+        assertNull(URLCanonicalizer.canonicalize("https://www.mendix.com/?x=1#a#b"));
+    }
+
+    private static String rebuildWithURIBuilder(URI uri) throws Exception {
+        URIBuilder uriBuilder = new URIBuilder(uri);
+        List<NameValuePair> queryParams = uriBuilder.getQueryParams();
+        for (NameValuePair queryParam : queryParams) {
+            if (queryParam.getName().equals(URLVerifier.URL_SIGNATURE)) {
+                queryParams.remove(queryParam);
+                break;
+            }
+        }
+        uriBuilder.setParameters(queryParams);
+        return uriBuilder.build().toString();
+    }
+}
@@ -0,0 +1,137 @@
+package com.mendix.cloud.urlsign.service;
+
+import com.mendix.cloud.urlsign.TestRequests;
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithm;
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithms;
+import com.mendix.cloud.urlsign.algorithm.SignatureContext;
+import com.mendix.cloud.urlsign.exception.URLSignException;
+import com.mendix.cloud.urlsign.util.KeyImporter;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class URLVerifierTest {
+
+    @Test
+    public void failedVerificationsReleaseTheirContext() throws Exception {
+        Key publicKey = KeyImporter.importPublicKey(resource("/id_rsa.pub"));
+        AtomicInteger contexts = new AtomicInteger();
+        for (EngineStrategy engineStrategy : new EngineStrategy[]{EngineStrategy.threadLocal(), EngineStrategy.pooled(1)}) {
+            contexts.set(0);
+            URLVerifier urlVerifier = new URLVerifier(publicKey, countingAlgorithm(SignatureAlgorithms.RSA_ISO9796_2, contexts), engineStrategy);
+            Random random = new Random(42);
+            for (int i = 0; i < 300; i++) {
+                byte[] signature = new byte[256];
+                random.nextBytes(signature);
+                assertFalse(urlVerifier.getVerification(signature, "https://www.mendix.com/?a=b"));
+            }
+            assertEquals(1, contexts.get());
+        }
+    }
+
+    @Test
+    public void segmentedMessageSignVerify() throws Exception {
+        URLSigner urlSigner = new URLSigner(resource("/id_rsa"));
+        URLVerifier urlVerifier = new URLVerifier(resource("/id_rsa.pub"));
+
+        String first = "lorem impsum \u00e9\u20ac ";
+        String second = "sit dolor \ud834\udd1e jeff ament";
+        byte[] message = (first + second).getBytes(StandardCharsets.UTF_8);
+
+        byte[] signature = urlSigner.getSignature(first, second);
+        assertArrayEquals(urlSigner.getSignature(message), signature);
+        assertTrue(urlVerifier.getVerification(message, signature));
+        assertTrue(urlVerifier.getVerification(signature, first, second));
+        assertTrue(urlVerifier.getVerification(signature, ByteBuffer.wrap(message, 0, 10), ByteBuffer.wrap(message, 10, message.length - 10)));
+        assertFalse(urlVerifier.getVerification(signature, second, first));
+    }
+
+    @Test
+    public void checkReturnsResultsWithoutThrowing() throws Exception {
+        URLSigner urlSigner = new URLSigner(resource("/id_rsa"));
+        URLVerifier urlVerifier = new URLVerifier(resource("/id_rsa.pub"));
+
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/path?a=b"), 10);
+        assertEquals(VerificationResult.VALID, urlVerifier.check(signedUri));
+        assertEquals(VerificationResult.VALID, urlVerifier.check(TestRequests.request(signedUri)));
+        assertEquals(VerificationResult.EXPIRED, urlVerifier.check(signedUri, System.currentTimeMillis() + 60000));
+        assertEquals(VerificationResult.MISSING_PARAMETER, urlVerifier.check(new URI("https://www.mendix.com/path?a=b")));
+        assertEquals(VerificationResult.MISSING_PARAMETER, urlVerifier.check(new URI("https://www.mendix.com/path")));
+        assertEquals(VerificationResult.MALFORMED_EXPIRY, urlVerifier.check(new URI(signedUri.toString().replaceFirst("expire=", "expire=x"))));
+        assertEquals(VerificationResult.MALFORMED_SIGNATURE, urlVerifier.check(new URI(signedUri.toString().replaceFirst("signature=..", "signature="))));
+        assertEquals(VerificationResult.BAD_SIGNATURE, urlVerifier.check(new URI(signedUri.toString().replace("a=b", "a=c"))));
+        assertEquals(VerificationResult.UNEXPECTED_ALGORITHM, urlVerifier.check(new URI(signedUri.toString().replace("a=b", "algorithm=hs256"))));
+
+        try {
+            urlVerifier.verify(new URI(signedUri.toString().replace("a=b", "a=c")));
+            fail();
+        } catch (URLSignException e) {
+            assertFalse(e.getMessage().contains("modulus"));
+        }
+    }
+
+    @Test
+    public void requestVerificationRejectsEarly() throws Exception {
+        URLSigner urlSigner = new URLSigner(resource("/id_rsa"));
+        URLVerifier urlVerifier = new URLVerifier(resource("/id_rsa.pub"));
+
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/path?a=b"), 10);
+        assertTrue(urlVerifier.verify(TestRequests.request(signedUri)));
+
+        try {
+            urlVerifier.verifyGracefully(TestRequests.request(new URI("https://www.mendix.com/path?a=b")));
+            fail();
+        } catch (URLSignException e) {
+            assertEquals("Missing 'expire' or 'signature' query parameter in URL.", e.getMessage());
+        }
+        assertFalse(urlVerifier.verifyGracefully(TestRequests.request(urlSigner.sign(new URI("https://www.mendix.com/path"), -10))));
+        assertFalse(urlVerifier.verifyGracefully(TestRequests.request(new URI(signedUri.toString().replaceFirst("signature=..", "signature=")))));
+        assertFalse(urlVerifier.verifyGracefully(TestRequests.request(new URI(signedUri.toString().replace("a=b", "a=c")))));
+
+        assertEquals(1, urlVerifier.getRejectCount(VerificationStage.PARAMETERS));
+        assertEquals(1, urlVerifier.getRejectCount(VerificationStage.EXPIRY));
+        assertEquals(1, urlVerifier.getRejectCount(VerificationStage.SIGNATURE_SHAPE));
+        assertEquals(1, urlVerifier.getRejectCount(VerificationStage.SIGNATURE));
+    }
+
+    private static SignatureAlgorithm countingAlgorithm(SignatureAlgorithm algorithm, AtomicInteger contexts) {
+        return new SignatureAlgorithm() {
+            @Override
+            public String getId() {
+                return algorithm.getId();
+            }
+
+            @Override
+            public boolean supports(Key key) {
+                return algorithm.supports(key);
+            }
+
+            @Override
+            public int getSignatureLength(Key key) {
+                return algorithm.getSignatureLength(key);
+            }
+
+            @Override
+            public SignatureContext newContext() throws URLSignException {
+                contexts.incrementAndGet();
+                return algorithm.newContext();
+            }
+        };
+    }
+
+    private static File resource(String name) {
+        return new File(URLVerifierTest.class.getResource(name).getFile());
+    }
+}
@@ -0,0 +1,62 @@
+package com.mendix.cloud.urlsign.service;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class VerificationCacheTest {
+
+    @Test
+    public void repeatedUrlsSkipVerificationUntilExpiry() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+        assertNull(urlVerifier.getVerificationCache());
+        urlVerifier.setVerificationCacheSize(100);
+        VerificationCache cache = urlVerifier.getVerificationCache();
+
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/?a=b"), 10);
+        URI tamperedUri = new URI(signedUri.toString().replace("a=b", "a=c"));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(VerificationResult.VALID, urlVerifier.check(signedUri));
+            assertEquals(VerificationResult.BAD_SIGNATURE, urlVerifier.check(tamperedUri));
+        }
+        assertEquals(2, cache.getHitCount());
+        assertEquals(4, cache.getMissCount());
+        assertEquals(1, cache.size());
+        assertEquals(3, urlVerifier.getRejectCount(VerificationStage.SIGNATURE));
+
+        long later = System.currentTimeMillis() + 60000;
+        assertEquals(VerificationResult.EXPIRED, urlVerifier.check(signedUri.toString(), later));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void boundedAndExpiring() {
+        VerificationCache cache = new VerificationCache(32);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("https://www.mendix.com/" + i, 1000);
+        }
+        assertTrue(cache.size() <= 32);
+        assertEquals(1000 - cache.size(), cache.getEvictionCount());
+
+        cache.put("https://www.mendix.com/x", 1000);
+        assertTrue(cache.contains("https://www.mendix.com/x", 1000));
+        assertFalse(cache.contains("https://www.mendix.com/x", 1001));
+        assertFalse(cache.contains("https://www.mendix.com/x", 0));
+        assertEquals(1.0 / 3, cache.getHitRate(), 1e-9);
+
+        StringBuilder longUrl = new StringBuilder("https://www.mendix.com/?");
+        while (longUrl.length() <= VerificationCache.MAX_URL_LENGTH) {
+            longUrl.append('a');
+        }
+        cache.clear();
+        cache.put(longUrl.toString(), 1000);
+        assertEquals(0, cache.size());
+    }
+}
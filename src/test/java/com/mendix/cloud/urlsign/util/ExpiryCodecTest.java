@@ -0,0 +1,71 @@
+package com.mendix.cloud.urlsign.util;
+
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExpiryCodecTest {
+
+    @Test
+    public void timestampMatchesSimpleDateFormat() throws Exception {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long epochSeconds = (long) (random.nextDouble() * 8000000000L);
+            String expected = dateFormat.format(new Date(TimeUnit.SECONDS.toMillis(epochSeconds)));
+
+            assertEquals(expected, ExpiryCodec.encode(epochSeconds, ExpiryFormat.TIMESTAMP));
+            assertEquals(epochSeconds, ExpiryCodec.decode(expected));
+        }
+    }
+
+    @Test
+    public void timestampFieldsRollOverLikeSimpleDateFormat() throws Exception {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMddHHmmss");
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        for (String value : new String[]{"20151301000000", "20150230000000", "20150100000000", "20151231246060"}) {
+            long expected = TimeUnit.MILLISECONDS.toSeconds(dateFormat.parse(value).getTime());
+            assertEquals(value, expected, ExpiryCodec.decode(value));
+        }
+    }
+
+    @Test
+    public void epochSeconds() {
+        assertEquals("1434034861", ExpiryCodec.encode(1434034861L, ExpiryFormat.EPOCH_SECONDS));
+        assertEquals(1434034861L, ExpiryCodec.decode("1434034861"));
+        assertEquals(ExpiryCodec.decode("20150611150101"), ExpiryCodec.decode("1434034861"));
+    }
+
+    @Test
+    public void invalidValues() {
+        assertEquals(ExpiryCodec.INVALID, ExpiryCodec.decode(""));
+        assertEquals(ExpiryCodec.INVALID, ExpiryCodec.decode("2015061115010a"));
+        assertEquals(ExpiryCodec.INVALID, ExpiryCodec.decode("201506111501011"));
+        assertEquals(ExpiryCodec.INVALID, ExpiryCodec.decode("-1434034861"));
+    }
+
+    @Test
+    public void endToEndTestEpochSecondsExpiry() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        urlSigner.setExpiryFormat(ExpiryFormat.EPOCH_SECONDS);
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+
+        assertTrue(urlVerifier.verify(urlSigner.sign(new URI("https://www.mendix.com"), 10)));
+        assertFalse(urlVerifier.verifyGracefully(urlSigner.sign(new URI("https://www.mendix.com"), -10)));
+    }
+}
@@ -0,0 +1,176 @@
+package com.mendix.cloud.urlsign.util;
+
+import com.mendix.cloud.urlsign.algorithm.SignatureAlgorithms;
+import com.mendix.cloud.urlsign.exception.URLSignException;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KeyImporterTest {
+
+    @Test
+    public void rsaPrivateKeyFormats() throws Exception {
+        RSAPrivateCrtKey pkcs1 = (RSAPrivateCrtKey) KeyImporter.importPrivateKey(resource("/id_rsa"));
+        RSAPrivateCrtKey pkcs8 = (RSAPrivateCrtKey) KeyImporter.importPrivateKey(resource("/formats/rsa_pkcs8.pem"));
+        RSAPrivateCrtKey openssh = (RSAPrivateCrtKey) KeyImporter.importPrivateKey(resource("/formats/openssh_rsa"));
+
+        assertArrayEquals(pkcs1.getEncoded(), pkcs8.getEncoded());
+        assertArrayEquals(pkcs1.getEncoded(), openssh.getEncoded());
+        assertEquals(pkcs1.getPrimeExponentP(), openssh.getPrimeExponentP());
+        assertEquals(pkcs1.getPrimeExponentQ(), openssh.getPrimeExponentQ());
+        assertEquals(pkcs1.getCrtCoefficient(), openssh.getCrtCoefficient());
+    }
+
+    @Test
+    public void ecdsaAndEd25519PrivateKeyFormats() throws Exception {
+        ECPrivateKey pkcs8 = (ECPrivateKey) KeyImporter.importPrivateKey(resource("/id_ecdsa"));
+        ECPrivateKey openssh = (ECPrivateKey) KeyImporter.importPrivateKey(resource("/formats/openssh_ecdsa"));
+        assertEquals(pkcs8.getS(), openssh.getS());
+
+        PrivateKey ed25519 = KeyImporter.importPrivateKey(resource("/id_ed25519"));
+        PrivateKey ed25519OpenSsh = KeyImporter.importPrivateKey(resource("/formats/openssh_ed25519"));
+        assertArrayEquals(sign(ed25519), sign(ed25519OpenSsh));
+    }
+
+    @Test
+    public void publicKeyFormats() throws Exception {
+        PublicKey rsa = KeyImporter.importPublicKey(resource("/id_rsa.pub"));
+        assertArrayEquals(rsa.getEncoded(), KeyImporter.importPublicKey(resource("/formats/rsa_spki.pem")).getEncoded());
+        assertArrayEquals(rsa.getEncoded(), KeyImporter.importPublicKey(resource("/formats/rsa_pkcs1.pem")).getEncoded());
+        assertArrayEquals(rsa.getEncoded(), KeyImporter.importPublicKey(rsa.getEncoded()).getEncoded());
+
+        assertArrayEquals(KeyImporter.importPublicKey(resource("/id_ecdsa.pub")).getEncoded(),
+                KeyImporter.importPublicKey(resource("/formats/ecdsa_spki.pem")).getEncoded());
+        assertArrayEquals(KeyImporter.importPublicKey(resource("/id_ed25519.pub")).getEncoded(),
+                KeyImporter.importPublicKey(resource("/formats/ed25519_spki.pem")).getEncoded());
+    }
+
+    @Test
+    public void bareBase64PrivateKey() throws Exception {
+        PrivateKey pem = KeyImporter.importPrivateKey(resource("/id_ecdsa"));
+        assertArrayEquals(pem.getEncoded(), KeyImporter.importPrivateKey(Base64.getEncoder().encodeToString(pem.getEncoded())).getEncoded());
+    }
+
+    @Test
+    public void strictSecretKeyDecoding() throws Exception {
+        String secret = new String(Files.readAllBytes(resource("/id_hmac").toPath()), StandardCharsets.US_ASCII);
+        assertArrayEquals(Base64.getDecoder().decode(secret.trim()), KeyImporter.importSecretKey(" " + secret.substring(0, 10) + "\r\n" + secret.substring(10)).getEncoded());
+        try {
+            KeyImporter.importSecretKey(secret.substring(0, 10) + "*" + secret.substring(10));
+            fail();
+        } catch (URLSignException e) {
+            assertEquals("Invalid Base64 encoding.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsEncryptedPrivateKeys() throws Exception {
+        String encrypted = new String(Files.readAllBytes(resource("/formats/openssh_rsa").toPath()), StandardCharsets.US_ASCII);
+        byte[] content = Base64.getMimeDecoder().decode(encrypted.replaceAll("-----[A-Z ]+-----", ""));
+        System.arraycopy("aes256-ctr".getBytes(StandardCharsets.US_ASCII), 0, content, 19, 4);
+        try {
+            KeyImporter.importPrivateKey(content);
+            fail();
+        } catch (URLSignException e) {
+            assertEquals("Encrypted private keys are not supported.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsInvalidRsaPrimes() throws Exception {
+        for (BigInteger prime : new BigInteger[]{BigInteger.ONE, BigInteger.ZERO, BigInteger.valueOf(-7)}) {
+            ByteArrayOutputStream section = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(section);
+            out.writeInt(42);
+            out.writeInt(42);
+            writeString(out, "ssh-rsa".getBytes(StandardCharsets.US_ASCII));
+            for (BigInteger value : new BigInteger[]{BigInteger.valueOf(3233), BigInteger.valueOf(17), BigInteger.valueOf(413), BigInteger.ONE, prime, BigInteger.valueOf(53)}) {
+                writeString(out, value.toByteArray());
+            }
+
+            ByteArrayOutputStream key = new ByteArrayOutputStream();
+            out = new DataOutputStream(key);
+            out.write("openssh-key-v1\0".getBytes(StandardCharsets.US_ASCII));
+            writeString(out, "none".getBytes(StandardCharsets.US_ASCII));
+            writeString(out, "none".getBytes(StandardCharsets.US_ASCII));
+            writeString(out, new byte[0]);
+            out.writeInt(1);
+            writeString(out, new byte[0]);
+            writeString(out, section.toByteArray());
+            try {
+                KeyImporter.importPrivateKey(key.toByteArray());
+                fail();
+            } catch (URLSignException e) {
+                assertEquals("Invalid Key Specification.", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void bulkImport() throws Exception {
+        Map<String, PublicKey> publicKeys = KeyImporter.importPublicKeys(resource("/"), "*.pub");
+        assertEquals(Arrays.asList("id_ecdsa.pub", "id_ed25519.pub", "id_rsa.pub"), Arrays.asList(publicKeys.keySet().toArray()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Map<String, PrivateKey> privateKeys = KeyImporter.importPrivateKeys(Arrays.asList(resource("/id_rsa"),
+                    resource("/formats/openssh_ed25519"), resource("/formats/rsa_pkcs8.pem")), executor);
+            assertEquals(3, privateKeys.size());
+            assertTrue(privateKeys.get("id_rsa") instanceof RSAPrivateCrtKey);
+            assertTrue(SignatureAlgorithms.ED25519.supports(privateKeys.get("openssh_ed25519")));
+
+            try {
+                KeyImporter.importPrivateKeys(Arrays.asList(resource("/id_rsa"), resource("/id_rsa.pub")), executor);
+                fail();
+            } catch (URLSignException e) {
+                assertEquals("Error while importing key file: id_rsa.pub", e.getMessage());
+            }
+
+            try {
+                KeyImporter.importPublicKeys(Arrays.asList(resource("/id_rsa.pub"), new File(resource("/formats"), "../id_rsa.pub")), executor);
+                fail();
+            } catch (URLSignException e) {
+                assertEquals("Duplicate key file name: id_rsa.pub", e.getMessage());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] sign(PrivateKey privateKey) throws Exception {
+        Signature signature = Signature.getInstance("Ed25519", new BouncyCastleProvider());
+        signature.initSign(privateKey);
+        signature.update("https://www.mendix.com/".getBytes(StandardCharsets.UTF_8));
+        return signature.sign();
+    }
+
+    private static void writeString(DataOutputStream out, byte[] value) throws Exception {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static File resource(String name) {
+        return new File(KeyImporterTest.class.getResource(name).getFile());
+    }
+}
@@ -0,0 +1,105 @@
+package com.mendix.cloud.urlsign.util;
+
+import com.mendix.cloud.urlsign.TestRequests;
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SignatureEncodingTest {
+
+    @Test
+    public void matchesReferenceEncoders() {
+        Random random = new Random(42);
+        for (int length = 0; length < 300; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+
+            String hex = SignatureEncoding.HEX.encode(bytes);
+            assertEquals(referenceHex(bytes), hex);
+            assertArrayEquals(bytes, SignatureEncoding.decode(hex));
+            assertArrayEquals(bytes, SignatureEncoding.decode(hex.toLowerCase()));
+
+            String base64 = SignatureEncoding.BASE64URL.encode(bytes);
+            assertEquals("b64." + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), base64);
+            assertArrayEquals(bytes, SignatureEncoding.decode(base64));
+        }
+    }
+
+    @Test
+    public void plausibility() {
+        byte[] bytes = new byte[32];
+        new Random(42).nextBytes(bytes);
+        String hex = SignatureEncoding.HEX.encode(bytes);
+        String base64 = SignatureEncoding.BASE64URL.encode(bytes);
+
+        assertTrue(SignatureEncoding.isPlausible(hex, 0, hex.length(), 32));
+        assertTrue(SignatureEncoding.isPlausible(hex, 0, hex.length(), -1));
+        assertTrue(SignatureEncoding.isPlausible(base64, 0, base64.length(), 32));
+        assertTrue(SignatureEncoding.isPlausible(base64, 0, base64.length(), -1));
+        assertFalse(SignatureEncoding.isPlausible(hex, 0, hex.length(), 64));
+        assertFalse(SignatureEncoding.isPlausible(base64, 0, base64.length() - 1, 32));
+        assertFalse(SignatureEncoding.isPlausible("b64.", 0, 4, -1));
+        assertFalse(SignatureEncoding.isPlausible("0G", 0, 2, -1));
+        assertFalse(SignatureEncoding.isPlausible("b64.AB+/", 0, 8, -1));
+    }
+
+    @Test
+    public void malformedValues() {
+        assertNull(SignatureEncoding.decode("ABC"));
+        assertNull(SignatureEncoding.decode("0G"));
+        assertNull(SignatureEncoding.decode("b64.A"));
+        assertNull(SignatureEncoding.decode("b64.AB=="));
+        assertNull(SignatureEncoding.decode("b64.\u00e9A"));
+    }
+
+    @Test
+    public void rejectsNonCanonicalBase64() {
+        String digits = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < digits.length(); i++) {
+            byte[] oneByte = SignatureEncoding.decode("b64.A" + digits.charAt(i));
+            byte[] twoBytes = SignatureEncoding.decode("b64.AA" + digits.charAt(i));
+            if ((i & 0xF) == 0) {
+                assertArrayEquals(new byte[]{(byte) (i >> 4)}, oneByte);
+            } else {
+                assertNull(oneByte);
+            }
+            if ((i & 0x3) == 0) {
+                assertArrayEquals(new byte[]{0, (byte) (i >> 2)}, twoBytes);
+            } else {
+                assertNull(twoBytes);
+            }
+        }
+    }
+
+    @Test
+    public void endToEndTestBase64UrlSignature() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        urlSigner.setSignatureEncoding(SignatureEncoding.BASE64URL);
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/path?a=b"), 10);
+        assertTrue(signedUri.toString().contains("&signature=b64."));
+        assertTrue(urlVerifier.verify(signedUri));
+        assertTrue(urlVerifier.verify(TestRequests.request(signedUri)));
+        assertFalse(urlVerifier.verifyGracefully(new URI(signedUri.toString().replace("a=b", "a=c"))));
+    }
+
+    private static String referenceHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02X", b & 0xFF));
+        }
+        return hex.toString();
+    }
+}
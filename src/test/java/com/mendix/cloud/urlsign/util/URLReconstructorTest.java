@@ -0,0 +1,99 @@
+package com.mendix.cloud.urlsign.util;
+
+import com.mendix.cloud.urlsign.service.URLSigner;
+import com.mendix.cloud.urlsign.service.URLVerifier;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class URLReconstructorTest {
+
+    @Test
+    public void rebuildsWithoutDecoding() {
+        Map<String, String> headers = new HashMap<>();
+        assertEquals("http://www.mendix.com/a%20b?x=a%20b&y=http://z",
+                URLReconstructor.DEFAULT.reconstruct(request("http", 80, "/a%20b", "x=a%20b&y=http://z", headers)));
+        assertEquals("https://www.mendix.com:8443/", URLReconstructor.DEFAULT.reconstruct(request("https", 8443, "/", null, headers)));
+    }
+
+    @Test
+    public void onlyTrustedHeadersOverrideSchemeAndHost() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Forwarded-Proto", "https, http");
+        headers.put("X-Forwarded-Host", "cdn.mendix.com");
+        headers.put("Forwarded", "for=192.0.2.60;proto=\"https\";host=\"forwarded.mendix.com:8443\", for=10.0.0.1;proto=http");
+
+        assertEquals("https://www.mendix.com/p?q", URLReconstructor.DEFAULT.reconstruct(request("http", 80, "/p", "q", headers)));
+        assertEquals("https://www.mendix.com:8080/p", URLReconstructor.DEFAULT.reconstruct(request("http", 8080, "/p", null, headers)));
+        assertEquals("http://www.mendix.com/p", new URLReconstructor().reconstruct(request("http", 80, "/p", null, headers)));
+        assertEquals("https://forwarded.mendix.com:8443/p", new URLReconstructor(URLReconstructor.ForwardedHeader.FORWARDED)
+                .reconstruct(request("http", 80, "/p", null, headers)));
+        assertEquals("http://cdn.mendix.com/p", new URLReconstructor(URLReconstructor.ForwardedHeader.X_FORWARDED_HOST)
+                .reconstruct(request("http", 80, "/p", null, headers)));
+
+        headers.put("X-Forwarded-Scheme", "ftp");
+        assertEquals("ftp://www.mendix.com/p", URLReconstructor.DEFAULT.reconstruct(request("http", 80, "/p", null, headers)));
+    }
+
+    @Test
+    public void forwardedSchemeNeverDowngradesHttps() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Forwarded-Proto", "http");
+        headers.put("Forwarded", "proto=http");
+
+        assertEquals("https://www.mendix.com/p", URLReconstructor.DEFAULT.reconstruct(request("https", 443, "/p", null, headers)));
+        assertEquals("https://www.mendix.com/p", new URLReconstructor(URLReconstructor.ForwardedHeader.FORWARDED)
+                .reconstruct(request("https", 443, "/p", null, headers)));
+        assertEquals("http://www.mendix.com/p", URLReconstructor.DEFAULT.reconstruct(request("http", 80, "/p", null, headers)));
+    }
+
+    @Test
+    public void requestWithEncodedQueryBehindProxy() throws Exception {
+        URLSigner urlSigner = new URLSigner(new File(getClass().getResource("/id_rsa").getFile()));
+        URLVerifier urlVerifier = new URLVerifier(new File(getClass().getResource("/id_rsa.pub").getFile()));
+
+        URI signedUri = urlSigner.sign(new URI("https://www.mendix.com/a%20b?name=a%20b%26c"), 10);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("X-Forwarded-Proto", "https");
+        assertTrue(urlVerifier.verify(request("http", 80, signedUri.getRawPath(), signedUri.getRawQuery(), headers)));
+    }
+
+    @Test
+    public void forwardedParameters() {
+        assertEquals("https", URLReconstructor.forwardedParameter("Proto=https", "proto"));
+        assertEquals("a.b", URLReconstructor.forwardedParameter(" for=\"[2001:db8::1]\" ; host=a.b;proto=http", "host"));
+        assertNull(URLReconstructor.forwardedParameter("for=1.2.3.4, proto=https", "proto"));
+        assertNull(URLReconstructor.forwardedParameter("secret;proto=", "proto"));
+        assertNull(URLReconstructor.forwardedParameter("", "proto"));
+    }
+
+    private static HttpServletRequest request(String scheme, int port, String requestURI, String query, Map<String, String> headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(URLReconstructorTest.class.getClassLoader(), new Class<?>[]{HttpServletRequest.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getScheme":
+                    return scheme;
+                case "getServerName":
+                    return "www.mendix.com";
+                case "getServerPort":
+                    return port;
+                case "getRequestURI":
+                    return requestURI;
+                case "getQueryString":
+                    return query;
+                case "getHeader":
+                    return headers.get(args[0]);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}